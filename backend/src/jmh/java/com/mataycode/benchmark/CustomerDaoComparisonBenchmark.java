@@ -0,0 +1,273 @@
+package com.mataycode.benchmark;
+
+import com.mataycode.AbstractTestcontainers;
+import com.mataycode.TestConfig;
+import com.mataycode.customer.*;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Throughput and latency of every CustomerDao method, JDBC against JPA, on a seeded Testcontainers database.
+ * Both DAOs are the beans of the test context, so their @Transactional proxies are part of the measurement.
+ * The slice leaves out the web, security and metrics beans - CustomerDaoMetricsAspect does not time these calls,
+ * and with datasource.routing off (the default) @ReadOnlyRoute reads run without any advice, as in production.
+ * Not a unit test - runs only on request:
+ * mvn -Pbenchmark -Djmh.skip=true -Dtest=CustomerDaoComparisonBenchmark -Dsurefire.failIfNoSpecifiedTests=false test
+ * Tuning: -Ddao.benchmark.customers, -Ddao.benchmark.operations (per thread), -Ddao.benchmark.concurrency (comma separated)
+ * Report: target/dao-benchmark-report.csv
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({
+        TestConfig.class,
+        CustomerJDBCDataAccessService.class,
+        CustomerJPADataAccessService.class,
+        CustomerRowMapper.class,
+        CustomerDTORowMapper.class
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.hikari.maximum-pool-size=32"
+})
+class CustomerDaoComparisonBenchmark extends AbstractTestcontainers {
+
+    private static final int CUSTOMERS = Integer.getInteger("dao.benchmark.customers", 10_000);
+    private static final int OPERATIONS_PER_THREAD = Integer.getInteger("dao.benchmark.operations", 500);
+    private static final int[] CONCURRENCY = Arrays.stream(System.getProperty("dao.benchmark.concurrency", "1,4,16").split(","))
+            .map(String::trim)
+            .mapToInt(Integer::parseInt)
+            .toArray();
+    private static final Path REPORT = Path.of("target", "dao-benchmark-report.csv");
+
+    private static final Duration SEARCH_STATEMENT_TIMEOUT = Duration.ofSeconds(5);
+
+    @Autowired
+    @Qualifier("jdbc")
+    private CustomerDao jdbcDao;
+    @Autowired
+    @Qualifier("jpa")
+    private CustomerDao jpaDao;
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+    private List<Integer> seededIds;
+
+    private record Result(String implementation, String operation, int concurrency,
+                          long operations, double throughput, Histogram latency) {
+    }
+
+    @Test
+    void compareDaoImplementations() throws Exception {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        seedCustomers();
+
+        Map<String, CustomerDao> implementations = new LinkedHashMap<>();
+        implementations.put("jdbc", jdbcDao);
+        implementations.put("jpa", jpaDao);
+
+        List<Result> results = new ArrayList<>();
+        for (int concurrency : CONCURRENCY) {
+            for (Map.Entry<String, CustomerDao> implementation : implementations.entrySet()) {
+                CustomerDao dao = implementation.getValue();
+                for (Map.Entry<String, BiConsumer<CustomerDao, Integer>> operation : operations(concurrency).entrySet()) {
+                    results.add(measure(implementation.getKey(), operation.getKey(), concurrency, dao, operation.getValue()));
+                }
+            }
+        }
+
+        writeReport(results);
+        printComparison(results);
+    }
+
+    private Map<String, BiConsumer<CustomerDao, Integer>> operations(int concurrency) {
+        Map<String, BiConsumer<CustomerDao, Integer>> operations = new LinkedHashMap<>();
+        operations.put("selectAllCustomers", (dao, i) -> dao.selectAllCustomers());
+        operations.put("selectCustomerById", (dao, i) -> dao.selectCustomerById(randomId()));
+        operations.put("selectCustomersByIds", (dao, i) -> dao.selectCustomersByIds(randomIds(20)));
+        operations.put("selectAllCustomerDTOs", (dao, i) -> dao.selectAllCustomerDTOs());
+        operations.put("selectCustomerDTOById", (dao, i) -> dao.selectCustomerDTOById(randomId()));
+        operations.put("selectCustomerDTOsByIds", (dao, i) -> dao.selectCustomerDTOsByIds(randomIds(20)));
+        operations.put("selectUserByEmail", (dao, i) -> dao.selectUserByEmail(emailOf(randomIndex())));
+        operations.put("existPersonWithEmail", (dao, i) -> dao.existPersonWithEmail(emailOf(randomIndex())));
+        operations.put("existPersonWithId", (dao, i) -> dao.existPersonWithId(randomId()));
+        operations.put("selectVersionedCustomerDTOById", (dao, i) -> dao.selectVersionedCustomerDTOById(randomId()));
+        operations.put("selectAllCustomersVersion", (dao, i) -> dao.selectAllCustomersVersion());
+        //first page of GET /api/v1/customers/search, contains and trigram matches on the seeded emails
+        operations.put("searchCustomerDTOs", (dao, i) -> dao.searchCustomerDTOs(
+                CustomerSearchQuery.of(emailOf(randomIndex())),
+                new CustomerSearchCursor(Float.MAX_VALUE, 0),
+                21,
+                SEARCH_STATEMENT_TIMEOUT));
+        operations.put("selectCustomerStats", (dao, i) -> dao.selectCustomerStats());
+        //full scan of the typeahead index load
+        operations.put("streamCustomerSuggestions", (dao, i) -> {
+            LongAdder suggestions = new LongAdder();
+            dao.streamCustomerSuggestions(suggestion -> suggestions.increment());
+        });
+        operations.put("insertCustomer", (dao, i) -> dao.insertCustomer(new Customer(
+                "Inserted " + i, "insert-" + UUID.randomUUID() + "@bench.dev", "password", 30, Gender.FEMALE)));
+        operations.put("updateCustomer", (dao, i) -> {
+            //read version and changed field only, like CustomerService
+            VersionedCustomerDTO customer = dao.selectVersionedCustomerDTOById(randomId()).orElseThrow();
+            Customer update = new Customer();
+            update.setId(customer.customer().id());
+            update.setVersion(customer.version());
+            update.setName("Updated " + i);
+            try {
+                dao.updateCustomer(update);
+            } catch (OptimisticLockingFailureException e) {
+                //two threads picked the same row, the loser is still a completed round trip
+            }
+        });
+        operations.put("updateProfileImageId", (dao, i) -> dao.updateProfileImageId(UUID.randomUUID().toString(), randomId()));
+        Queue<Integer> deletable = seedDeletable(concurrency * OPERATIONS_PER_THREAD * 2);
+        operations.put("deleteCustomerById", (dao, i) -> dao.deleteCustomerById(deletable.remove()));
+        return operations;
+    }
+
+    private Result measure(String implementation, String operation, int concurrency,
+                           CustomerDao dao, BiConsumer<CustomerDao, Integer> call) throws Exception {
+        //warm up connections, statement caches and JIT before the measured run
+        for (int i = 0; i < Math.min(50, OPERATIONS_PER_THREAD); i++) {
+            call.accept(dao, -i);
+        }
+
+        Histogram latency = new ConcurrentHistogram(TimeUnit.SECONDS.toNanos(10), 3);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < concurrency; t++) {
+            int thread = t;
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    long begin = System.nanoTime();
+                    call.accept(dao, thread * OPERATIONS_PER_THREAD + i);
+                    latency.recordValue(System.nanoTime() - begin);
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        long operations = (long) concurrency * OPERATIONS_PER_THREAD;
+        double throughput = operations / (elapsed / 1_000_000_000.0);
+        return new Result(implementation, operation, concurrency, operations, throughput, latency);
+    }
+
+    private void seedCustomers() {
+        jdbcTemplate.update("DELETE FROM customer");
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO customer(name, email, password, age, gender) VALUES (?, ?, ?, ?, ?)",
+                IntStream.range(0, CUSTOMERS)
+                        .mapToObj(i -> new Object[]{FAKER.name().fullName(), emailOf(i), "password", 18 + i % 60, i % 2 == 0 ? "MALE" : "FEMALE"})
+                        .toList()
+        );
+        seededIds = jdbcTemplate.queryForList("SELECT id FROM customer ORDER BY id", Integer.class);
+    }
+
+    private Queue<Integer> seedDeletable(int count) {
+        String prefix = "delete-" + UUID.randomUUID();
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO customer(name, email, password, age, gender) VALUES (?, ?, ?, ?, ?)",
+                IntStream.range(0, count)
+                        .mapToObj(i -> new Object[]{"Deleted " + i, prefix + "-" + i + "@bench.dev", "password", 30, "MALE"})
+                        .toList()
+        );
+        return new ConcurrentLinkedQueue<>(
+                jdbcTemplate.queryForList("SELECT id FROM customer WHERE email LIKE ? ORDER BY id", Integer.class, prefix + "%")
+        );
+    }
+
+    private int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(CUSTOMERS);
+    }
+
+    private Integer randomId() {
+        return seededIds.get(randomIndex());
+    }
+
+    private List<Integer> randomIds(int size) {
+        return IntStream.range(0, size).mapToObj(i -> randomId()).toList();
+    }
+
+    private static String emailOf(int index) {
+        return "dao-benchmark-" + index + "@bench.dev";
+    }
+
+    private void writeReport(List<Result> results) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("implementation,operation,concurrency,operations,throughput_ops_per_s,p50_us,p99_us,max_us");
+        for (Result result : results) {
+            lines.add("%s,%s,%d,%d,%.1f,%.1f,%.1f,%.1f".formatted(
+                    result.implementation(),
+                    result.operation(),
+                    result.concurrency(),
+                    result.operations(),
+                    result.throughput(),
+                    micros(result.latency().getValueAtPercentile(50)),
+                    micros(result.latency().getValueAtPercentile(99)),
+                    micros(result.latency().getMaxValue())
+            ));
+        }
+        Files.createDirectories(REPORT.getParent());
+        Files.write(REPORT, lines);
+    }
+
+    private void printComparison(List<Result> results) {
+        System.out.printf("%n%-26s %4s %14s %14s %12s %12s %12s %12s%n",
+                "operation", "thr", "jdbc ops/s", "jpa ops/s", "jdbc p50 us", "jpa p50 us", "jdbc p99 us", "jpa p99 us");
+        for (Result jdbc : results) {
+            if (!jdbc.implementation().equals("jdbc")) {
+                continue;
+            }
+            Result jpa = results.stream()
+                    .filter(r -> r.implementation().equals("jpa")
+                            && r.operation().equals(jdbc.operation())
+                            && r.concurrency() == jdbc.concurrency())
+                    .findFirst()
+                    .orElseThrow();
+            System.out.printf("%-26s %4d %14.1f %14.1f %12.1f %12.1f %12.1f %12.1f%n",
+                    jdbc.operation(), jdbc.concurrency(),
+                    jdbc.throughput(), jpa.throughput(),
+                    micros(jdbc.latency().getValueAtPercentile(50)), micros(jpa.latency().getValueAtPercentile(50)),
+                    micros(jdbc.latency().getValueAtPercentile(99)), micros(jpa.latency().getValueAtPercentile(99)));
+        }
+        System.out.println("Report written to " + REPORT.toAbsolutePath());
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1_000.0;
+    }
+}
@@ -0,0 +1,316 @@
+package com.mataycode.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mataycode.AbstractTestcontainers;
+import com.mataycode.auth.AuthenticationRequest;
+import com.mataycode.customer.CustomerDTO;
+import com.mataycode.customer.CustomerRegistrationRequest;
+import com.mataycode.customer.CustomerUpdateRequest;
+import com.mataycode.customer.Gender;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * Open-model HTTP load against the full stack: random port app, Testcontainers Postgres and FakeS3.
+ * Requests are fired on a fixed schedule whatever the response times are, and latency is measured
+ * from the intended send time, so queueing in the app shows up instead of slowing the generator down.
+ * Not a unit test - runs only on request:
+ * mvn -Pbenchmark -Djmh.skip=true -Dtest=CustomerLoadGenerator -Dsurefire.failIfNoSpecifiedTests=false test
+ * Tuning: -Dload.rates (requests/s, comma separated steps), -Dload.step.seconds, -Dload.customers, -Dload.slo.p99.ms
+ * Report: target/load-report.csv
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+@TestPropertySource(properties = {
+        "spring.jpa.show-sql=false",
+        "aws.s3.mock=true"
+})
+class CustomerLoadGenerator extends AbstractTestcontainers {
+
+    private static final int[] RATES = Arrays.stream(System.getProperty("load.rates", "25,50,100,200,400").split(","))
+            .map(String::trim)
+            .mapToInt(Integer::parseInt)
+            .toArray();
+    private static final int STEP_SECONDS = Integer.getInteger("load.step.seconds", 30);
+    private static final int CUSTOMERS = Integer.getInteger("load.customers", 200);
+    private static final long SLO_P99_MS = Long.getLong("load.slo.p99.ms", 500);
+    private static final int MAX_IN_FLIGHT = 10_000;
+    private static final Path REPORT = Path.of("target", "load-report.csv");
+    private static final String CUSTOMER_PATH = "/api/v1/customers";
+    private static final String LOGIN_PATH = "/api/v1/auth/login";
+    private static final String PASSWORD = "password";
+    private static final String BOUNDARY = "load-generator-boundary";
+
+    //weights of the traffic mix, roughly what the dashboard does
+    private static final Map<String, Integer> MIX = new LinkedHashMap<>();
+
+    static {
+        MIX.put("signup", 5);
+        MIX.put("login", 10);
+        MIX.put("list", 25);
+        MIX.put("getById", 30);
+        MIX.put("update", 10);
+        MIX.put("uploadImage", 5);
+        MIX.put("downloadImage", 15);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private HttpClient httpClient;
+    private byte[] image;
+    private final List<LoadCustomer> customers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    private record LoadCustomer(Integer id, String email, String token) {
+    }
+
+    private record StepResult(int targetRate, double achievedRate, long dropped,
+                              Map<String, Histogram> latencies, Map<String, LongAdder> errors) {
+    }
+
+    @Test
+    void generateLoad() throws Exception {
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(32))
+                .build();
+        image = new ClassPathResource("male.jpg").getContentAsByteArray();
+
+        seedCustomers();
+
+        List<StepResult> results = new ArrayList<>();
+        for (int rate : RATES) {
+            StepResult result = runStep(rate);
+            results.add(result);
+            printStep(result);
+        }
+
+        writeReport(results);
+        printSaturation(results);
+    }
+
+    private void seedCustomers() throws Exception {
+        for (int i = 0; i < CUSTOMERS; i++) {
+            LoadCustomer customer = register();
+            send(multipartUpload(customer)).join();
+            customers.add(customer);
+        }
+    }
+
+    private StepResult runStep(int rate) throws InterruptedException {
+        Map<String, Histogram> latencies = new LinkedHashMap<>();
+        Map<String, LongAdder> errors = new LinkedHashMap<>();
+        MIX.keySet().forEach(operation -> {
+            latencies.put(operation, new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(1), 3));
+            errors.put(operation, new LongAdder());
+        });
+
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long total = (long) rate * STEP_SECONDS;
+        AtomicInteger inFlight = new AtomicInteger();
+        LongAdder dropped = new LongAdder();
+        Phaser completion = new Phaser(1);
+
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * interval;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.get() >= MAX_IN_FLIGHT) {
+                dropped.increment();
+                continue;
+            }
+
+            String operation = pickOperation();
+            inFlight.incrementAndGet();
+            completion.register();
+            request(operation).whenComplete((response, throwable) -> {
+                long latency = System.nanoTime() - intended;
+                latencies.get(operation).recordValue(Math.min(latency, TimeUnit.MINUTES.toNanos(1)));
+                if (throwable != null || response.statusCode() >= 400) {
+                    errors.get(operation).increment();
+                }
+                inFlight.decrementAndGet();
+                completion.arriveAndDeregister();
+            });
+        }
+        completion.arriveAndAwaitAdvance();
+        long elapsed = System.nanoTime() - start;
+
+        long completed = latencies.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        double achievedRate = completed / (elapsed / 1_000_000_000.0);
+        return new StepResult(rate, achievedRate, dropped.sum(), latencies, errors);
+    }
+
+    private String pickOperation() {
+        int totalWeight = MIX.values().stream().mapToInt(Integer::intValue).sum();
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<String, Integer> entry : MIX.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Traffic mix is empty");
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> request(String operation) {
+        LoadCustomer customer = customers.get(ThreadLocalRandom.current().nextInt(customers.size()));
+        try {
+            return switch (operation) {
+                case "signup" -> send(json("POST", CUSTOMER_PATH, null, registrationRequest(nextEmail())));
+                case "login" -> send(json("POST", LOGIN_PATH, null, new AuthenticationRequest(customer.email(), PASSWORD)));
+                case "list" -> send(get(CUSTOMER_PATH, customer.token()));
+                case "getById" -> send(get(CUSTOMER_PATH + "/" + customer.id(), customer.token()));
+                case "update" -> send(json("PUT", CUSTOMER_PATH + "/" + customer.id(), customer.token(),
+                        new CustomerUpdateRequest("Load " + UUID.randomUUID(), null, null, null)));
+                case "uploadImage" -> send(multipartUpload(customer));
+                case "downloadImage" -> send(get(CUSTOMER_PATH + "/" + customer.id() + "/profile-image", customer.token()));
+                default -> throw new IllegalArgumentException("Unknown operation " + operation);
+            };
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private LoadCustomer register() throws IOException {
+        String email = nextEmail();
+        HttpResponse<byte[]> registered = send(json("POST", CUSTOMER_PATH, null, registrationRequest(email))).join();
+        String token = registered.headers().firstValue("Authorization").orElseThrow();
+        HttpResponse<byte[]> found = send(get(CUSTOMER_PATH + "/email/" + email, token)).join();
+        CustomerDTO customerDTO = objectMapper.readValue(found.body(), CustomerDTO.class);
+        return new LoadCustomer(customerDTO.id(), email, token);
+    }
+
+    private CustomerRegistrationRequest registrationRequest(String email) {
+        int age = ThreadLocalRandom.current().nextInt(18, 80);
+        return new CustomerRegistrationRequest(
+                FAKER.name().fullName(), email, PASSWORD, age, age % 2 == 0 ? Gender.MALE : Gender.FEMALE);
+    }
+
+    private String nextEmail() {
+        return "load-" + sequence.incrementAndGet() + "-" + UUID.randomUUID() + "@load.dev";
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> send(HttpRequest request) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    private HttpRequest json(String method, String path, String token, Object body) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private HttpRequest multipartUpload(LoadCustomer customer) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"male.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(image);
+        body.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        return HttpRequest.newBuilder(uri(CUSTOMER_PATH + "/" + customer.id() + "/profile-image"))
+                .header("Authorization", "Bearer " + customer.token())
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private void printStep(StepResult result) {
+        System.out.printf("%n=== target %d req/s, achieved %.1f req/s, dropped %d ===%n",
+                result.targetRate(), result.achievedRate(), result.dropped());
+        System.out.printf("%-14s %8s %8s %10s %10s %10s %10s%n", "operation", "count", "errors", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        result.latencies().forEach((operation, histogram) -> System.out.printf("%-14s %8d %8d %10.2f %10.2f %10.2f %10.2f%n",
+                operation,
+                histogram.getTotalCount(),
+                result.errors().get(operation).sum(),
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getMaxValue())));
+    }
+
+    private void printSaturation(List<StepResult> results) {
+        //first step where the app falls behind the schedule or breaks the latency objective
+        Optional<StepResult> saturated = results.stream()
+                .filter(result -> result.dropped() > 0
+                        || result.achievedRate() < result.targetRate() * 0.95
+                        || result.latencies().values().stream()
+                        .anyMatch(histogram -> millis(histogram.getValueAtPercentile(99)) > SLO_P99_MS))
+                .findFirst();
+        System.out.println(saturated
+                .map(result -> "Saturation reached at %d req/s (p99 objective %d ms)".formatted(result.targetRate(), SLO_P99_MS))
+                .orElse("No saturation up to %d req/s (p99 objective %d ms)".formatted(RATES[RATES.length - 1], SLO_P99_MS)));
+        System.out.println("Report written to " + REPORT.toAbsolutePath());
+    }
+
+    private void writeReport(List<StepResult> results) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("target_rate,achieved_rate,dropped,operation,count,errors,p50_ms,p90_ms,p99_ms,max_ms");
+        for (StepResult result : results) {
+            result.latencies().forEach((operation, histogram) -> lines.add("%d,%.1f,%d,%s,%d,%d,%.2f,%.2f,%.2f,%.2f".formatted(
+                    result.targetRate(),
+                    result.achievedRate(),
+                    result.dropped(),
+                    operation,
+                    histogram.getTotalCount(),
+                    result.errors().get(operation).sum(),
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getMaxValue()))));
+        }
+        Files.createDirectories(REPORT.getParent());
+        Files.write(REPORT, lines);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
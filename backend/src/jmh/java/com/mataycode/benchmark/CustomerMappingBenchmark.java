@@ -0,0 +1,52 @@
+package com.mataycode.benchmark;
+
+import com.mataycode.customer.Customer;
+import com.mataycode.customer.CustomerDTO;
+import com.mataycode.customer.CustomerDTOMapper;
+import com.mataycode.customer.CustomerRowMapper;
+import com.mataycode.customer.Gender;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomerMappingBenchmark {
+
+    private final CustomerRowMapper customerRowMapper = new CustomerRowMapper();
+    private final CustomerDTOMapper customerDTOMapper = new CustomerDTOMapper();
+    private ResultSet resultSet;
+    private Customer customer;
+
+    @Setup
+    public void setUp() {
+        resultSet = StubResultSet.of(Map.of(
+                "id", 1,
+                "name", "John Doe",
+                "email", "john.doe@dev.com",
+                "password", "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z4gG1Zf3Qw5G4k5rXh1lJ3uK",
+                "age", 21,
+                "gender", "MALE",
+                "profile_image_id", "3f2504e0-4f89-11d3-9a0c-0305e82c3301",
+                "version", 0L
+        ));
+        customer = new Customer(1, "John Doe", "john.doe@dev.com", "password", 21, Gender.MALE, "3f2504e0-4f89-11d3-9a0c-0305e82c3301");
+    }
+
+    @Benchmark
+    public Customer rowMapperMapRow() throws SQLException {
+        return customerRowMapper.mapRow(resultSet, 1);
+    }
+
+    @Benchmark
+    public CustomerDTO dtoMapperApply() {
+        return customerDTOMapper.apply(customer);
+    }
+}
@@ -0,0 +1,75 @@
+package com.mataycode.benchmark;
+
+import com.mataycode.customer.CustomerPrefixIndex;
+import com.mataycode.customer.CustomerSuggestion;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Per-lookup latency of the typeahead index, by prefix length, at 1M customers.
+ * mvn -Pbenchmark test -Djmh.args="CustomerPrefixIndex"
+ * Index size is printed once per fork after loading.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class CustomerPrefixIndexBenchmark {
+
+    private static final String[] FIRST_NAMES = {
+            "james", "mary", "john", "patricia", "robert", "jennifer", "michael", "linda", "william", "elizabeth",
+            "david", "barbara", "richard", "susan", "joseph", "jessica", "thomas", "sarah", "charles", "karen"
+    };
+    private static final String[] LAST_NAMES = {
+            "smith", "johnson", "williams", "brown", "jones", "garcia", "miller", "davis", "rodriguez", "martinez",
+            "hernandez", "lopez", "gonzalez", "wilson", "anderson", "thomas", "taylor", "moore", "jackson", "martin"
+    };
+
+    @Param({"1000000"})
+    private int customers;
+
+    @Param({"1", "3", "6"})
+    private int prefixLength;
+
+    private CustomerPrefixIndex index;
+    private List<String> prefixes;
+
+    @Setup
+    public void setUp() {
+        index = new CustomerPrefixIndex(customers, Integer.MAX_VALUE, Runnable::run);
+        Random random = new Random(42);
+        index.reload(consumer -> IntStream.rangeClosed(1, customers)
+                .mapToObj(id -> {
+                    String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                    String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                    return new CustomerSuggestion(id, capitalize(first) + " " + capitalize(last), first + "." + last + id + "@bench.dev");
+                })
+                .forEach(consumer));
+        System.out.printf("%nTypeahead index: %d customers, ~%d MB%n", index.size(), index.estimatedBytes() / (1024 * 1024));
+
+        prefixes = IntStream.range(0, 1024)
+                .mapToObj(i -> {
+                    String source = random.nextBoolean()
+                            ? FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]
+                            : LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                    return source.substring(0, Math.min(prefixLength, source.length()));
+                })
+                .toList();
+    }
+
+    @Benchmark
+    public List<CustomerSuggestion> suggest() {
+        return index.suggest(prefixes.get(ThreadLocalRandom.current().nextInt(prefixes.size())), 10);
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+}
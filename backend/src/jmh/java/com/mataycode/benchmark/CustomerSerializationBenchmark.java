@@ -0,0 +1,59 @@
+package com.mataycode.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.mataycode.customer.CustomerDTO;
+import com.mataycode.customer.Gender;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomerSerializationBenchmark {
+
+    //50 is the page size of selectAllCustomers
+    @Param({"1", "50", "100"})
+    private int size;
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private List<CustomerDTO> customers;
+
+    @Setup
+    public void setUp() {
+        objectMapper = switch (format) {
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().factory(new SmileFactory()).build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().factory(new CBORFactory()).build();
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        customers = IntStream.rangeClosed(1, size)
+                .mapToObj(id -> new CustomerDTO(
+                        id,
+                        "Customer " + id,
+                        "customer." + id + "@dev.com",
+                        id % 2 == 0 ? Gender.MALE : Gender.FEMALE,
+                        18 + id % 60,
+                        List.of("ROLE_USER"),
+                        "customer." + id + "@dev.com",
+                        UUID.randomUUID().toString()))
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] serializeCustomers() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(customers);
+    }
+}
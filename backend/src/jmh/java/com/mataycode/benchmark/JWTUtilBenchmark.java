@@ -0,0 +1,41 @@
+package com.mataycode.benchmark;
+
+import com.mataycode.jwt.JWTUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JWTUtilBenchmark {
+
+    private static final String SUBJECT = "john.doe@dev.com";
+
+    private final JWTUtil jwtUtil = new JWTUtil();
+    private String token;
+
+    @Setup
+    public void setUp() {
+        token = jwtUtil.issueToken(SUBJECT, List.of("ROLE_USER"));
+    }
+
+    @Benchmark
+    public String issueToken() {
+        return jwtUtil.issueToken(SUBJECT, List.of("ROLE_USER"));
+    }
+
+    @Benchmark
+    public String getSubject() {
+        return jwtUtil.getSubject(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtUtil.isTokenValid(token, SUBJECT);
+    }
+}
@@ -0,0 +1,245 @@
+package com.mataycode.benchmark;
+
+import com.mataycode.AbstractTestcontainers;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Startup time and resident memory of the JVM jar against the native executable of the native profile,
+ * and with -Dstartup.cds=true of the extracted jar with and without an AppCDS archive of a training run (see the cds profile),
+ * all started as separate processes against the same Testcontainers Postgres with FakeS3.
+ * Startup is measured from process start to the first successful GET /ping, RSS is read from /proc (Linux only)
+ * right after startup and again after a burst of requests.
+ * Not a unit test - runs only on request, after building both artifacts:
+ * mvn -DskipTests package (jar), mvn -Pnative -DskipTests native:compile (executable)
+ * mvn -Pbenchmark -Djmh.skip=true -Dtest=StartupComparison -Dsurefire.failIfNoSpecifiedTests=false test
+ * Tuning: -Dstartup.runs, -Dstartup.cds, -Dstartup.jar, -Dstartup.native, -Dstartup.jvm.options (e.g. "-Xmx256m -XX:TieredStopAtLevel=1",
+ * or "-Dspring.aot.enabled=true" for the AOT-processed jar of the native profile on the JVM)
+ * Report: target/startup-report.csv
+ */
+class StartupComparison extends AbstractTestcontainers {
+
+    private static final int RUNS = Integer.getInteger("startup.runs", 5);
+    private static final int REQUESTS_AFTER_STARTUP = 1_000;
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(120);
+    private static final Path REPORT = Path.of("target", "startup-report.csv");
+    private static final Path CDS_DIRECTORY = Path.of("target", "startup-cds");
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    private record Run(String build, int run, long startupMillis, long rssAfterStartupKb, long rssAfterRequestsKb) {
+    }
+
+    @Test
+    void compareJvmAndNativeStartup() throws Exception {
+        Map<String, List<String>> builds = new LinkedHashMap<>();
+        Optional<Path> jar = jar();
+        if (jar.isPresent()) {
+            builds.put("jvm", java(List.of("-jar", jar.get().toString())));
+            if (Boolean.getBoolean("startup.cds")) {
+                Path extracted = extract(jar.get());
+                Path archive = trainCdsArchive(extracted);
+                builds.put("jvm-extracted", java(List.of("-jar", extracted.toString())));
+                builds.put("jvm-cds", java(List.of("-XX:SharedArchiveFile=" + archive, "-Xshare:auto", "-jar", extracted.toString())));
+            }
+        }
+        Path executable = Path.of(System.getProperty("startup.native", "target/mataycode-website"));
+        if (Files.isExecutable(executable)) {
+            builds.put("native", List.of(executable.toString()));
+        }
+        if (builds.isEmpty()) {
+            throw new IllegalStateException("Neither the jar nor the native executable was found, build them first");
+        }
+
+        List<Run> runs = new ArrayList<>();
+        for (Map.Entry<String, List<String>> build : builds.entrySet()) {
+            for (int run = 1; run <= RUNS; run++) {
+                runs.add(measure(build.getKey(), run, build.getValue()));
+            }
+        }
+
+        writeReport(runs);
+        printComparison(runs);
+    }
+
+    private Run measure(String build, int run, List<String> command) throws Exception {
+        int port = freePort();
+        List<String> arguments = new ArrayList<>(command);
+        arguments.addAll(List.of(
+                "--server.port=" + port,
+                "--spring.datasource.url=" + postgreSQLContainer.getJdbcUrl(),
+                "--spring.datasource.username=" + postgreSQLContainer.getUsername(),
+                "--spring.datasource.password=" + postgreSQLContainer.getPassword(),
+                "--aws.s3.mock=true"
+        ));
+        Path log = Path.of("target", "startup-%s-%d.log".formatted(build, run));
+        Process process = new ProcessBuilder(arguments)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        long begin = System.nanoTime();
+        try {
+            URI ping = URI.create("http://localhost:%d/ping".formatted(port));
+            awaitFirstResponse(process, ping, log);
+            long startupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+            long rssAfterStartup = rssKb(process);
+
+            for (int i = 0; i < REQUESTS_AFTER_STARTUP; i++) {
+                httpClient.send(HttpRequest.newBuilder(ping).GET().build(), HttpResponse.BodyHandlers.discarding());
+            }
+            return new Run(build, run, startupMillis, rssAfterStartup, rssKb(process));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static List<String> java(List<String> arguments) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(splitOptions(System.getProperty("startup.jvm.options", "")));
+        command.addAll(arguments);
+        return command;
+    }
+
+    //CDS only archives classes from plain jars on the classpath, not from the jars nested in the fat jar
+    private static Path extract(Path jar) throws Exception {
+        run(java(List.of("-Djarmode=tools", "-jar", jar.toString(), "extract", "--force", "--destination", CDS_DIRECTORY.toString())), "extract");
+        try (Stream<Path> files = Files.list(CDS_DIRECTORY)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow();
+        }
+    }
+
+    //same training run as the cds profile, the context is refreshed without a database and the JVM exits
+    private static Path trainCdsArchive(Path extracted) throws Exception {
+        Path archive = CDS_DIRECTORY.resolve("application.jsa");
+        Files.deleteIfExists(archive);
+        run(java(List.of(
+                "-XX:ArchiveClassesAtExit=" + archive,
+                "-Xlog:cds=error",
+                "-Dspring.context.exit=onRefresh",
+                "-Dspring.profiles.active=cds-training",
+                "-jar", extracted.toString())), "cds-training");
+        return archive;
+    }
+
+    private static void run(List<String> command, String name) throws Exception {
+        Path log = Path.of("target", "startup-%s.log".formatted(name));
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        if (!process.waitFor(STARTUP_TIMEOUT.toSeconds(), TimeUnit.SECONDS) || process.exitValue() != 0) {
+            process.destroyForcibly();
+            throw new IllegalStateException("%s failed, see %s".formatted(name, log.toAbsolutePath()));
+        }
+    }
+
+    private void awaitFirstResponse(Process process, URI ping, Path log) throws Exception {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        HttpRequest request = HttpRequest.newBuilder(ping).GET().timeout(Duration.ofSeconds(1)).build();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited during startup, see " + log.toAbsolutePath());
+            }
+            try {
+                if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                //not listening yet
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("Application did not answer within " + STARTUP_TIMEOUT + ", see " + log.toAbsolutePath());
+    }
+
+    //VmRSS of the process, -1 where /proc is not available
+    private static long rssKb(Process process) throws IOException {
+        Path status = Path.of("/proc", String.valueOf(process.pid()), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        try (Stream<String> lines = Files.lines(status)) {
+            return lines.filter(line -> line.startsWith("VmRSS:"))
+                    .map(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                    .findFirst()
+                    .orElse(-1L);
+        }
+    }
+
+    private static Optional<Path> jar() throws IOException {
+        String jar = System.getProperty("startup.jar");
+        if (jar != null) {
+            return Optional.of(Path.of(jar));
+        }
+        try (Stream<Path> files = Files.list(Path.of("target"))) {
+            return files.filter(file -> file.getFileName().toString().matches("mataycode-website-.*\\.jar"))
+                    .findFirst();
+        }
+    }
+
+    private static List<String> splitOptions(String options) {
+        return options.isBlank() ? List.of() : List.of(options.trim().split("\\s+"));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private void writeReport(List<Run> runs) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("build,run,startup_ms,rss_after_startup_mb,rss_after_requests_mb");
+        for (Run run : runs) {
+            lines.add("%s,%d,%d,%.1f,%.1f".formatted(
+                    run.build(), run.run(), run.startupMillis(),
+                    megabytes(run.rssAfterStartupKb()), megabytes(run.rssAfterRequestsKb())));
+        }
+        Files.createDirectories(REPORT.getParent());
+        Files.write(REPORT, lines);
+    }
+
+    private void printComparison(List<Run> runs) {
+        System.out.printf("%n%-13s %16s %16s %22s %22s%n",
+                "build", "startup p50 ms", "startup max ms", "rss after start MB", "rss after requests MB");
+        runs.stream().map(Run::build).distinct().forEach(build -> {
+            List<Run> ofBuild = runs.stream().filter(run -> run.build().equals(build)).toList();
+            long[] startup = ofBuild.stream().mapToLong(Run::startupMillis).sorted().toArray();
+            System.out.printf("%-13s %16d %16d %22.1f %22.1f%n",
+                    build, startup[startup.length / 2], startup[startup.length - 1],
+                    megabytes(median(ofBuild.stream().mapToLong(Run::rssAfterStartupKb).toArray())),
+                    megabytes(median(ofBuild.stream().mapToLong(Run::rssAfterRequestsKb).toArray())));
+        });
+        System.out.println("Report written to " + REPORT.toAbsolutePath());
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static double megabytes(long kilobytes) {
+        return kilobytes < 0 ? -1 : kilobytes / 1024.0;
+    }
+}
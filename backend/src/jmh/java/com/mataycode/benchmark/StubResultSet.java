@@ -0,0 +1,29 @@
+package com.mataycode.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.Map;
+
+/**
+ * Minimal ResultSet answering getString/getInt/getLong from a fixed row.
+ * Plain proxy instead of a Mockito mock, so the stub does not dominate the measured time.
+ */
+final class StubResultSet {
+
+    private StubResultSet() {
+    }
+
+    static ResultSet of(Map<String, Object> row) {
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getString" -> (String) row.get((String) args[0]);
+                    case "getInt" -> (Integer) row.get((String) args[0]);
+                    case "getLong" -> (Long) row.get((String) args[0]);
+                    case "wasNull" -> false;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                }
+        );
+    }
+}
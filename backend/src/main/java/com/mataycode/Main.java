@@ -1,6 +1,7 @@
 package com.mataycode;
 
 import com.github.javafaker.Faker;
+import com.mataycode.aot.NativeImageRuntimeHints;
 import com.mataycode.customer.Customer;
 import com.mataycode.customer.CustomerRepository;
 import com.mataycode.customer.Gender;
@@ -10,6 +11,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -17,6 +19,7 @@ import java.util.UUID;
 
 @SpringBootApplication
 @RestController
+@ImportRuntimeHints(NativeImageRuntimeHints.class)
 public class Main {
     public static void main(String[] args) {
         SpringApplication.run(Main.class, args);
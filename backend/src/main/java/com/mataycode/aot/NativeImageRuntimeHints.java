@@ -0,0 +1,103 @@
+package com.mataycode.aot;
+
+import com.mataycode.auth.AuthenticationRequest;
+import com.mataycode.auth.AuthenticationResponse;
+import com.mataycode.credentials.DatabaseCredentials;
+import com.mataycode.customer.*;
+import com.mataycode.exception.ApiError;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.stream.Stream;
+
+/**
+ * Reflection and resource hints the Spring AOT engine cannot infer, only used by the native image (-Pnative).
+ * Libraries with metadata of their own (AWS SDK, Hibernate via the GraalVM reachability repository)
+ * are not repeated here. FakeS3 needs none, S3Config creates it directly and it never reflects.
+ */
+public class NativeImageRuntimeHints implements RuntimeHintsRegistrar {
+
+    //loaded by name through io.jsonwebtoken.lang.Classes, jjwt-api has no compile-time reference to jjwt-impl
+    private static final String[] JJWT_IMPL_TYPES = {
+            "io.jsonwebtoken.impl.DefaultClaimsBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtHeaderBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.io.StandardCompressionAlgorithms",
+            "io.jsonwebtoken.impl.security.DefaultDynamicJwkBuilder",
+            "io.jsonwebtoken.impl.security.DefaultJwkParserBuilder",
+            "io.jsonwebtoken.impl.security.DefaultJwkSetBuilder",
+            "io.jsonwebtoken.impl.security.DefaultJwkSetParserBuilder",
+            "io.jsonwebtoken.impl.security.DefaultKeyOperationBuilder",
+            "io.jsonwebtoken.impl.security.DefaultKeyOperationPolicyBuilder",
+            "io.jsonwebtoken.impl.security.JwksBridge",
+            "io.jsonwebtoken.impl.security.KeysBridge",
+            "io.jsonwebtoken.impl.security.StandardCurves",
+            "io.jsonwebtoken.impl.security.StandardEncryptionAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardHashAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyOperations",
+            "io.jsonwebtoken.impl.security.StandardSecureDigestAlgorithms",
+            //service-loaded JSON (de)serializers of jjwt-jackson
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        registerJsonTypes(hints);
+        registerJpaProjections(hints);
+        registerJjwt(hints);
+        registerResources(hints);
+    }
+
+    //records (de)serialized by Jackson, including the Smile and CBOR converters and the database secret
+    private static void registerJsonTypes(RuntimeHints hints) {
+        BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+        bindingRegistrar.registerReflectionHints(hints.reflection(),
+                ApiError.class,
+                AuthenticationRequest.class,
+                AuthenticationResponse.class,
+                CustomerDTO.class,
+                CustomerLookupRequest.class,
+                CustomerLookupResponse.class,
+                CustomerRegistrationRequest.class,
+                CustomerSearchResponse.class,
+                CustomerStatsResponse.class,
+                CustomerSuggestion.class,
+                CustomerUpdateRequest.class,
+                DatabaseCredentials.class
+        );
+    }
+
+    //targets of JPQL constructor expressions, Hibernate calls them reflectively
+    private static void registerJpaProjections(RuntimeHints hints) {
+        Stream.of(CustomerView.class, VersionedCustomerDTO.class, CustomerStatsRow.class, CustomerSuggestion.class)
+                .forEach(type -> hints.reflection().registerType(type, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS));
+    }
+
+    private static void registerJjwt(RuntimeHints hints) {
+        for (String type : JJWT_IMPL_TYPES) {
+            hints.reflection().registerType(TypeReference.of(type),
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS,
+                    MemberCategory.DECLARED_FIELDS);
+        }
+        hints.resources()
+                .registerPattern("META-INF/services/io.jsonwebtoken.io.Serializer")
+                .registerPattern("META-INF/services/io.jsonwebtoken.io.Deserializer")
+                .registerPattern("META-INF/services/io.jsonwebtoken.CompressionCodec");
+    }
+
+    private static void registerResources(RuntimeHints hints) {
+        hints.resources()
+                //flyway scans the location at runtime, the image has no classpath directory to list
+                .registerPattern("db/migration/*.sql")
+                //faker locale files, Main seeds a random customer on every start
+                .registerPattern("en.yml")
+                .registerPattern("en/*.yml");
+    }
+}
@@ -3,6 +3,7 @@ package com.mataycode.auth;
 import com.mataycode.customer.Customer;
 import com.mataycode.customer.CustomerDTO;
 import com.mataycode.customer.CustomerDTOMapper;
+import com.mataycode.jfr.LoginEvent;
 import com.mataycode.jwt.JWTUtil;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -23,15 +24,30 @@ public class AuthenticationService {
     }
 
     public AuthenticationResponse login(AuthenticationRequest request) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        request.username(),
-                        request.password()
-                )
-        );
+        Authentication authentication = authenticate(request);
         Customer principal = (Customer) authentication.getPrincipal();
         CustomerDTO customerDTO = customerDTOMapper.apply(principal);
         String token = jwtUtil.issueToken(customerDTO.username(), customerDTO.roles());
         return new AuthenticationResponse(token, customerDTO);
     }
+
+    //user lookup and password hash check
+    private Authentication authenticate(AuthenticationRequest request) {
+        LoginEvent event = new LoginEvent();
+        event.begin();
+        boolean success = false;
+        try {
+            Authentication authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            request.username(),
+                            request.password()
+                    )
+            );
+            success = true;
+            return authentication;
+        } finally {
+            event.setSuccess(success);
+            event.commit();
+        }
+    }
 }
@@ -0,0 +1,122 @@
+package com.mataycode.concurrent;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Collapses concurrent calls for the same key into one load.
+ * The first caller runs the loader, callers arriving while it is in flight wait for its future.
+ * Nothing is cached - the key is released as soon as the load finishes.
+ * Waiters give up after waitTimeout and get the value through waiterCopy, the leader gets the loaded value itself.
+ */
+public class SingleFlight<K, V> implements MeterBinder {
+
+    private final String name;
+    //null waits as long as the load takes
+    private final Duration waitTimeout;
+    private final UnaryOperator<V> waiterCopy;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    public SingleFlight(String name) {
+        this(name, null, UnaryOperator.identity());
+    }
+
+    public SingleFlight(String name, Duration waitTimeout, UnaryOperator<V> waiterCopy) {
+        this.name = name;
+        this.waitTimeout = waitTimeout;
+        this.waiterCopy = waiterCopy;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+
+        if (existing != null) {
+            collapsed.increment();
+            return waiterCopy.apply(await(key, existing));
+        }
+
+        executed.increment();
+        try {
+            V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    public long getExecutedCount() {
+        return executed.sum();
+    }
+
+    public long getCollapsedCount() {
+        return collapsed.sum();
+    }
+
+    public long getTimedOutCount() {
+        return timedOut.sum();
+    }
+
+    private V await(K key, CompletableFuture<V> future) {
+        try {
+            return waitTimeout == null ? future.get() : future.get(waitTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            //rethrow loader exception as it is for waiting callers
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            throw new SingleFlightTimeoutException("Load of [%s] still in flight after %s".formatted(key, waitTimeout));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for load of [%s]".formatted(key), e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("singleflight.calls", this, SingleFlight::getExecutedCount)
+                .description("Loads executed by the single-flight leader")
+                .tag("name", name)
+                .tag("result", "executed")
+                .register(registry);
+        FunctionCounter.builder("singleflight.calls", this, SingleFlight::getCollapsedCount)
+                .description("Calls collapsed onto an in-flight load")
+                .tag("name", name)
+                .tag("result", "collapsed")
+                .register(registry);
+        FunctionCounter.builder("singleflight.calls", this, SingleFlight::getTimedOutCount)
+                .description("Collapsed calls that stopped waiting for the load")
+                .tag("name", name)
+                .tag("result", "timed-out")
+                .register(registry);
+        Gauge.builder("singleflight.in.flight", inFlight, ConcurrentHashMap::size)
+                .description("Keys currently being loaded")
+                .tag("name", name)
+                .register(registry);
+    }
+}
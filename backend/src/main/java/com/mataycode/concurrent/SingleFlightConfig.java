@@ -0,0 +1,26 @@
+package com.mataycode.concurrent;
+
+import com.mataycode.customer.VersionedCustomerDTO;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Optional;
+
+@Configuration
+public class SingleFlightConfig {
+
+    //a hung S3 download only holds its own caller beyond this, waiters of the same key fail with 503
+    static final Duration S3_OBJECT_WAIT_TIMEOUT = Duration.ofSeconds(10);
+
+    @Bean
+    public SingleFlight<Integer, Optional<VersionedCustomerDTO>> customerSingleFlight() {
+        return new SingleFlight<>("customer");
+    }
+
+    @Bean
+    public SingleFlight<String, byte[]> s3ObjectSingleFlight() {
+        //waiters get a copy of the downloaded array, the leader keeps it without copying
+        return new SingleFlight<>("s3-object", S3_OBJECT_WAIT_TIMEOUT, byte[]::clone);
+    }
+}
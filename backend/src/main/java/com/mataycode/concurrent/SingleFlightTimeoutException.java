@@ -0,0 +1,9 @@
+package com.mataycode.concurrent;
+
+//a caller gave up waiting for the load of another caller, the load itself goes on
+public class SingleFlightTimeoutException extends RuntimeException {
+
+    public SingleFlightTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,104 @@
+package com.mataycode.credentials;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the current database credentials in memory and refreshes them in the background.
+ * Readers never block on the source: a failed refresh keeps serving the last good credentials
+ * and is retried on the next tick. A login rejected by the database triggers an early,
+ * rate-limited refresh through {@link #refreshAfterAuthFailure(DatabaseCredentials)}.
+ */
+public class CachingCredentialsProvider implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingCredentialsProvider.class);
+
+    private final DatabaseCredentialsSource source;
+    private final List<Consumer<DatabaseCredentials>> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler;
+    private final long authFailureRefreshIntervalNanos;
+    private volatile DatabaseCredentials credentials;
+    private long lastAuthFailureRefreshNanos;
+    private boolean authFailureRefreshed;
+
+    public CachingCredentialsProvider(DatabaseCredentialsSource source, Duration refreshInterval) {
+        this(source, refreshInterval, Duration.ZERO);
+    }
+
+    //first load is synchronous - fail fast at startup rather than with an empty pool
+    public CachingCredentialsProvider(DatabaseCredentialsSource source,
+                                      Duration refreshInterval,
+                                      Duration authFailureRefreshInterval) {
+        this.source = source;
+        this.authFailureRefreshIntervalNanos = authFailureRefreshInterval.toNanos();
+        this.credentials = source.load();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-credentials-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = refreshInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::refresh, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public DatabaseCredentials getCredentials() {
+        return credentials;
+    }
+
+    //listener is called with the current credentials right away and again after every change
+    public void onChange(Consumer<DatabaseCredentials> listener) {
+        listeners.add(listener);
+        listener.accept(credentials);
+    }
+
+    public boolean refresh() {
+        DatabaseCredentials loaded;
+        try {
+            loaded = source.load();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to refresh database credentials, keeping the cached ones", e);
+            return false;
+        }
+        if (!loaded.equals(credentials)) {
+            credentials = loaded;
+            LOGGER.info("Database credentials rotated for user [{}]", loaded.username());
+            listeners.forEach(listener -> listener.accept(loaded));
+        }
+        return true;
+    }
+
+    /**
+     * Called when the database rejected {@code rejected}, e.g. after a rotation that happened
+     * between two scheduled refreshes. Reloads at most once per auth failure refresh interval,
+     * so a wrong secret can't turn every connection attempt into a call to the source.
+     *
+     * @return true when the current credentials differ from the rejected ones and are worth a retry
+     */
+    public synchronized boolean refreshAfterAuthFailure(DatabaseCredentials rejected) {
+        //another connection attempt already picked up the rotated credentials
+        if (!rejected.equals(credentials)) {
+            return true;
+        }
+        long now = System.nanoTime();
+        if (authFailureRefreshed && now - lastAuthFailureRefreshNanos < authFailureRefreshIntervalNanos) {
+            return false;
+        }
+        authFailureRefreshed = true;
+        lastAuthFailureRefreshNanos = now;
+        LOGGER.warn("Database rejected the credentials of user [{}], refreshing them", rejected.username());
+        return refresh() && !rejected.equals(credentials);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
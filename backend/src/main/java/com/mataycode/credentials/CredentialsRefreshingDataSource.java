@@ -0,0 +1,45 @@
+package com.mataycode.credentials;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Physical connection source of the pool. A login rejected with invalid_password refreshes the
+ * credentials right away and retries once, instead of failing connections until the next
+ * scheduled refresh picks up a rotated secret.
+ */
+public class CredentialsRefreshingDataSource extends DelegatingDataSource {
+
+    //PostgreSQL invalid_password
+    static final String INVALID_PASSWORD = "28P01";
+
+    private final CachingCredentialsProvider credentialsProvider;
+
+    public CredentialsRefreshingDataSource(DataSource targetDataSource, CachingCredentialsProvider credentialsProvider) {
+        super(targetDataSource);
+        this.credentialsProvider = credentialsProvider;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DatabaseCredentials credentials = credentialsProvider.getCredentials();
+        return getConnection(credentials.username(), credentials.password());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        try {
+            return obtainTargetDataSource().getConnection(username, password);
+        } catch (SQLException e) {
+            if (!INVALID_PASSWORD.equals(e.getSQLState())
+                    || !credentialsProvider.refreshAfterAuthFailure(new DatabaseCredentials(username, password))) {
+                throw e;
+            }
+            DatabaseCredentials refreshed = credentialsProvider.getCredentials();
+            return obtainTargetDataSource().getConnection(refreshed.username(), refreshed.password());
+        }
+    }
+}
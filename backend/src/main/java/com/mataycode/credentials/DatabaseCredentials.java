@@ -0,0 +1,32 @@
+package com.mataycode.credentials;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+public record DatabaseCredentials(String username, String password) {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    //same JSON shape as an RDS secret: {"username": "...", "password": "...", "host": ..., ...}
+    static DatabaseCredentials fromJson(String json) {
+        try {
+            JsonNode node = OBJECT_MAPPER.readTree(json);
+            JsonNode username = node.get("username");
+            JsonNode password = node.get("password");
+            if (username == null || password == null) {
+                throw new IllegalStateException("Database secret has no username or password");
+            }
+            return new DatabaseCredentials(username.asText(), password.asText());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Database secret is not valid JSON", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DatabaseCredentials[username=" + username + ", password=****]";
+    }
+}
@@ -0,0 +1,82 @@
+package com.mataycode.credentials;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.util.DriverDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+
+import javax.sql.DataSource;
+
+/**
+ * Feeds the connection pool from CachingCredentialsProvider, so opening a physical connection
+ * (pool warm-up, reconnect after failover) never waits on Secrets Manager.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "database.credentials", name = "source")
+public class DatabaseCredentialsConfig {
+
+    @Bean
+    public DatabaseCredentialsSource databaseCredentialsSource(DatabaseCredentialsProperties properties,
+                                                               @Value("${aws.region}") String awsRegion) {
+        return switch (properties.getSource()) {
+            case SECRETS_MANAGER -> new SecretsManagerCredentialsSource(
+                    SecretsManagerClient.builder()
+                            .region(Region.of(awsRegion))
+                            .build(),
+                    properties.getSecretId()
+            );
+            case FILE -> new FileCredentialsSource(properties.getFile());
+        };
+    }
+
+    @Bean
+    public CachingCredentialsProvider cachingCredentialsProvider(DatabaseCredentialsSource source,
+                                                                 DatabaseCredentialsProperties properties) {
+        return new CachingCredentialsProvider(
+                source,
+                properties.getRefreshInterval(),
+                properties.getAuthFailureRefreshInterval()
+        );
+    }
+
+    //Hikari reads username/password for every new physical connection, so rotated credentials apply without a restart
+    @Bean
+    public static BeanPostProcessor hikariCredentialsBeanPostProcessor(ObjectProvider<CachingCredentialsProvider> credentialsProvider) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    applyCredentials(credentialsProvider.getObject(), hikari);
+                }
+                return bean;
+            }
+        };
+    }
+
+    public static void applyCredentials(CachingCredentialsProvider credentialsProvider, HikariDataSource hikari) {
+        credentialsProvider.onChange(credentials -> {
+            hikari.setUsername(credentials.username());
+            hikari.setPassword(credentials.password());
+        });
+        //the pool has not started yet, so it still accepts a data source in place of its jdbc url
+        DataSource target = hikari.getDataSource();
+        if (target == null && hikari.getJdbcUrl() != null) {
+            target = new DriverDataSource(
+                    hikari.getJdbcUrl(),
+                    hikari.getDriverClassName(),
+                    hikari.getDataSourceProperties(),
+                    hikari.getUsername(),
+                    hikari.getPassword()
+            );
+        }
+        if (target != null) {
+            hikari.setDataSource(new CredentialsRefreshingDataSource(target, credentialsProvider));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.mataycode.credentials;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "database.credentials")
+public class DatabaseCredentialsProperties {
+
+    public enum Source {
+        SECRETS_MANAGER,
+        FILE
+    }
+
+    //not set - spring.datasource.username/password are used as they are
+    private Source source;
+    //secret name or ARN when source is secrets-manager
+    private String secretId;
+    //secret JSON file when source is file
+    private Path file;
+    private Duration refreshInterval = Duration.ofMinutes(15);
+    //minimum time between early refreshes triggered by a login the database rejected
+    private Duration authFailureRefreshInterval = Duration.ofSeconds(30);
+
+    public Source getSource() {
+        return source;
+    }
+
+    public void setSource(Source source) {
+        this.source = source;
+    }
+
+    public String getSecretId() {
+        return secretId;
+    }
+
+    public void setSecretId(String secretId) {
+        this.secretId = secretId;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public void setFile(Path file) {
+        this.file = file;
+    }
+
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public void setRefreshInterval(Duration refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    public Duration getAuthFailureRefreshInterval() {
+        return authFailureRefreshInterval;
+    }
+
+    public void setAuthFailureRefreshInterval(Duration authFailureRefreshInterval) {
+        this.authFailureRefreshInterval = authFailureRefreshInterval;
+    }
+}
@@ -0,0 +1,11 @@
+package com.mataycode.credentials;
+
+/**
+ * Where database credentials are read from. Called only by CachingCredentialsProvider,
+ * never on the connection path.
+ */
+@FunctionalInterface
+public interface DatabaseCredentialsSource {
+
+    DatabaseCredentials load();
+}
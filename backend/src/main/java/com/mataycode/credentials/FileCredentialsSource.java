@@ -0,0 +1,28 @@
+package com.mataycode.credentials;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Local stand-in for Secrets Manager - reads the secret JSON from a file, re-read on every refresh
+ * so rotation can be simulated by rewriting the file.
+ */
+public class FileCredentialsSource implements DatabaseCredentialsSource {
+
+    private final Path file;
+
+    public FileCredentialsSource(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public DatabaseCredentials load() {
+        try {
+            return DatabaseCredentials.fromJson(Files.readString(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read database credentials from " + file, e);
+        }
+    }
+}
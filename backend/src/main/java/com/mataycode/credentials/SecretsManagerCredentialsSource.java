@@ -0,0 +1,29 @@
+package com.mataycode.credentials;
+
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
+
+public class SecretsManagerCredentialsSource implements DatabaseCredentialsSource, AutoCloseable {
+
+    private final SecretsManagerClient client;
+    private final String secretId;
+
+    public SecretsManagerCredentialsSource(SecretsManagerClient client, String secretId) {
+        this.client = client;
+        this.secretId = secretId;
+    }
+
+    @Override
+    public DatabaseCredentials load() {
+        String secret = client.getSecretValue(GetSecretValueRequest.builder()
+                .secretId(secretId)
+                .build()
+        ).secretString();
+        return DatabaseCredentials.fromJson(secret);
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 
 @Entity
@@ -25,11 +26,15 @@ import java.util.Objects;
 )
 public class Customer implements UserDetails {
 
+    static final int ID_ALLOCATION_SIZE = 50;
+    static final String ROLE = "ROLE_USER";
+
+    //must match INCREMENT BY of customer_id_seq (V4 migration), Hibernate follows the database on mismatch
     @Id
     @SequenceGenerator(
             name = "customer_id_seq",
             sequenceName = "customer_id_seq",
-            allocationSize = 1
+            allocationSize = ID_ALLOCATION_SIZE
     )
     @GeneratedValue(
             strategy = GenerationType.SEQUENCE,
@@ -38,6 +43,7 @@ public class Customer implements UserDetails {
     private Integer id;
     @Column(nullable = false)
     private String name;
+    //always canonical (see canonicalEmail), enforced by the customer_email_canonical check (V5 migration)
     @Column(nullable = false)
     private String email;
     @Column(nullable = false)
@@ -49,13 +55,17 @@ public class Customer implements UserDetails {
     private String password;
     @Column(unique = true)
     private String profileImageId;
+    //incremented by every update, a stale version fails the update (V7 migration)
+    @Version
+    @Column(nullable = false)
+    private Long version;
 
     public Customer() {
     }
 
     public Customer(String name, String email, String password, Integer age, Gender gender) {
         this.name = name;
-        this.email = email;
+        this.email = canonicalEmail(email);
         this.password = password;
         this.age = age;
         this.gender = gender;
@@ -64,7 +74,7 @@ public class Customer implements UserDetails {
     public Customer(Integer id, String name, String email, String password, Integer age, Gender gender) {
         this.id = id;
         this.name = name;
-        this.email = email;
+        this.email = canonicalEmail(email);
         this.password = password;
         this.age = age;
         this.gender = gender;
@@ -75,6 +85,11 @@ public class Customer implements UserDetails {
         this.profileImageId = profileImageId;
     }
 
+    //trimmed and lower-cased, the only form stored and looked up so the unique email index is case-insensitive
+    public static String canonicalEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
     public Integer getId() {
         return id;
     }
@@ -96,7 +111,7 @@ public class Customer implements UserDetails {
     }
 
     public void setEmail(String email) {
-        this.email = email;
+        this.email = canonicalEmail(email);
     }
 
     public Integer getAge() {
@@ -123,10 +138,18 @@ public class Customer implements UserDetails {
         this.profileImageId = profileImageId;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     //USER DETAILS IMPLEMENTATION
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        return List.of(new SimpleGrantedAuthority(ROLE));
     }
 
     @Override
@@ -134,6 +157,10 @@ public class Customer implements UserDetails {
         return this.password;
     }
 
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
     @Override
     public String getUsername() {
         return email;
@@ -1,10 +1,13 @@
 package com.mataycode.customer;
 
 import com.mataycode.jwt.JWTUtil;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -21,14 +24,75 @@ public class CustomerController {
         this.jwtUtil = jwtUtil;
     }
 
+    //the representation depends on the Accept (JSON, Smile, CBOR) and on the caller
+    private static final String[] VARY_HEADERS = {HttpHeaders.ACCEPT, HttpHeaders.AUTHORIZATION};
+
     @GetMapping
-    public List<CustomerDTO> getAllCustomers() {
-        return customerService.getAllCustomers();
+    public ResponseEntity<List<CustomerDTO>> getAllCustomers(WebRequest webRequest) {
+        //ETag before the customers - a write in between makes the ETag stale, never the cached body
+        String eTag = customerService.getAllCustomersETag();
+        if (webRequest.checkNotModified(eTag)) {
+            return notModified(eTag);
+        }
+
+        return ResponseEntity
+                .ok()
+                .eTag(eTag)
+                .varyBy(VARY_HEADERS)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(customerService.getAllCustomers());
     }
 
     @GetMapping("/{customerId}")
-    public CustomerDTO getCustomerById(@PathVariable("customerId") Integer id) {
-        return customerService.getCustomerById(id);
+    public ResponseEntity<CustomerDTO> getCustomerById(@PathVariable("customerId") Integer id, WebRequest webRequest) {
+        //ETag from the version of the row that is returned, serializing is skipped when not modified
+        VersionedCustomerDTO customer = customerService.getVersionedCustomerById(id);
+        String eTag = customerService.getCustomerETag(customer);
+        if (webRequest.checkNotModified(eTag)) {
+            return notModified(eTag);
+        }
+
+        return ResponseEntity
+                .ok()
+                .eTag(eTag)
+                .varyBy(VARY_HEADERS)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(customer.customer());
+    }
+
+    //304 keeps the validator and Vary headers of the 200
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity
+                .status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .varyBy(VARY_HEADERS)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .build();
+    }
+
+    @PostMapping("/lookup")
+    public CustomerLookupResponse lookupCustomers(@RequestBody CustomerLookupRequest lookupRequest) {
+        return customerService.lookupCustomers(lookupRequest);
+    }
+
+    @GetMapping("/search")
+    public CustomerSearchResponse searchCustomers(
+            @RequestParam("q") String query,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
+        return customerService.searchCustomers(query, cursor, size);
+    }
+
+    @GetMapping("/stats")
+    public CustomerStatsResponse getCustomerStats() {
+        return customerService.getCustomerStats();
+    }
+
+    @GetMapping("/typeahead")
+    public List<CustomerSuggestion> suggestCustomers(
+            @RequestParam("prefix") String prefix,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        return customerService.suggestCustomers(prefix, limit);
     }
 
     @GetMapping("/email/{customerEmail}")
@@ -38,8 +102,9 @@ public class CustomerController {
 
     @PostMapping
     public ResponseEntity<?> registerCustomer(@RequestBody CustomerRegistrationRequest request) {
-        customerService.addCustomer(request);
-        String jwtToken = jwtUtil.issueToken(request.email(), "ROLE_USER");
+        //subject must equal the stored username, the JWT filter compares them exactly
+        String username = customerService.addCustomer(request);
+        String jwtToken = jwtUtil.issueToken(username, "ROLE_USER");
 
         return ResponseEntity
                 .ok()
@@ -52,9 +117,17 @@ public class CustomerController {
         customerService.deleteCustomerById(customerId);
     }
 
+    //If-Match with the ETag of GET /{customerId} turns the update into a compare-and-set, 412 when it is stale
     @PutMapping("{customerId}")
-    public void updateCustomer(@PathVariable("customerId") Integer customerId, @RequestBody CustomerUpdateRequest updateRequest) {
-        customerService.updateCustomer(customerId, updateRequest);
+    public ResponseEntity<Void> updateCustomer(
+            @PathVariable("customerId") Integer customerId,
+            @RequestBody CustomerUpdateRequest updateRequest,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        String eTag = customerService.updateCustomer(customerId, updateRequest, ifMatch);
+        return ResponseEntity
+                .ok()
+                .eTag(eTag)
+                .build();
     }
 
     //AWS
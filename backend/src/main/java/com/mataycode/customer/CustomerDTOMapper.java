@@ -2,6 +2,7 @@ package com.mataycode.customer;
 
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -21,4 +22,18 @@ public class CustomerDTOMapper implements Function<Customer, CustomerDTO> {
                 customer.getProfileImageId()
         );
     }
+
+    //for read projections that never load the entity, must stay in line with Customer authorities and username
+    static CustomerDTO toDTO(Integer id, String name, String email, Gender gender, Integer age, String profileImageId) {
+        return new CustomerDTO(
+                id,
+                name,
+                email,
+                gender,
+                age,
+                List.of(Customer.ROLE),
+                email,
+                profileImageId
+        );
+    }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.mataycode.customer;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+//read projection - maps the DTO columns straight to CustomerDTO, the password hash is never selected
+@Component
+public class CustomerDTORowMapper implements RowMapper<CustomerDTO> {
+    @Override
+    public CustomerDTO mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return CustomerDTOMapper.toDTO(
+                rs.getInt("id"),
+                rs.getString("name"),
+                rs.getString("email"),
+                Gender.valueOf(rs.getString("gender")),
+                rs.getInt("age"),
+                rs.getString("profile_image_id")
+        );
+    }
+}
@@ -2,14 +2,20 @@ package com.mataycode.customer;
 
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 public interface CustomerDao {
 
     List<Customer> selectAllCustomers();
     Optional<Customer> selectCustomerById(Integer customerId);
+    List<Customer> selectCustomersByIds(List<Integer> customerIds);
+    List<CustomerDTO> selectAllCustomerDTOs();
+    Optional<CustomerDTO> selectCustomerDTOById(Integer customerId);
+    List<CustomerDTO> selectCustomerDTOsByIds(List<Integer> customerIds);
     void insertCustomer(Customer customer);
     boolean existPersonWithEmail(String email);
     boolean existPersonWithId(Integer customerId);
@@ -17,4 +23,9 @@ public interface CustomerDao {
     void updateCustomer(Customer update);
     Optional<Customer> selectUserByEmail(String email);
     void updateProfileImageId(String profileImageId, Integer customerId);
+    Optional<VersionedCustomerDTO> selectVersionedCustomerDTOById(Integer customerId);
+    String selectAllCustomersVersion();
+    List<CustomerStatsRow> selectCustomerStats();
+    void streamCustomerSuggestions(Consumer<CustomerSuggestion> consumer);
+    List<CustomerSearchHit> searchCustomerDTOs(CustomerSearchQuery query, CustomerSearchCursor after, int limit, Duration statementTimeout);
 }
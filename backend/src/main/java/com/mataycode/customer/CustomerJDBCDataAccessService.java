@@ -1,27 +1,52 @@
 package com.mataycode.customer;
 
+import com.mataycode.datasource.ReadOnlyRoute;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository("jdbc")
 public class CustomerJDBCDataAccessService implements CustomerDao {
 
+    //postgres sqlstate query_canceled, raised when statement_timeout is exceeded
+    private static final String QUERY_CANCELED = "57014";
+    private static final int SUGGESTION_FETCH_SIZE = 1000;
+
     private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private final CustomerRowMapper customerRowMapper;
+    private final CustomerDTORowMapper customerDTORowMapper;
 
-    public CustomerJDBCDataAccessService(JdbcTemplate jdbcTemplate, CustomerRowMapper customerRowMapper) {
+    public CustomerJDBCDataAccessService(JdbcTemplate jdbcTemplate, CustomerRowMapper customerRowMapper, CustomerDTORowMapper customerDTORowMapper) {
         this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
         this.customerRowMapper = customerRowMapper;
+        this.customerDTORowMapper = customerDTORowMapper;
     }
 
     @Override
+    @ReadOnlyRoute
     public List<Customer> selectAllCustomers() {
         var sql = """
-                SELECT id, name, email, password, age, gender, profile_image_id
+                SELECT id, name, email, password, age, gender, profile_image_id, version
                 FROM customer
+                ORDER BY id
                 LIMIT 50
                 """;
 
@@ -39,9 +64,10 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
     }
 
     @Override
+    @ReadOnlyRoute
     public Optional<Customer> selectCustomerById(Integer id) {
         var sql = """
-                SELECT id, name, email, password, age, gender, profile_image_id
+                SELECT id, name, email, password, age, gender, profile_image_id, version
                 FROM customer
                 WHERE id = ?
                 """;
@@ -50,26 +76,97 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
     }
 
     @Override
+    @ReadOnlyRoute
+    public List<Customer> selectCustomersByIds(List<Integer> ids) {
+        var sql = """
+                SELECT id, name, email, password, age, gender, profile_image_id, version
+                FROM customer
+                WHERE id = ANY(?)
+                """;
+
+        return jdbcTemplate.query(
+                sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("integer", ids.toArray())),
+                customerRowMapper
+        );
+    }
+
+    @Override
+    @ReadOnlyRoute
+    public List<CustomerDTO> selectAllCustomerDTOs() {
+        var sql = """
+                SELECT id, name, email, age, gender, profile_image_id
+                FROM customer
+                ORDER BY id
+                LIMIT 50
+                """;
+
+        return jdbcTemplate.query(sql, customerDTORowMapper);
+    }
+
+    @Override
+    @ReadOnlyRoute
+    public Optional<CustomerDTO> selectCustomerDTOById(Integer id) {
+        var sql = """
+                SELECT id, name, email, age, gender, profile_image_id
+                FROM customer
+                WHERE id = ?
+                """;
+
+        return jdbcTemplate.query(sql, customerDTORowMapper, id).stream().findFirst();
+    }
+
+    @Override
+    @ReadOnlyRoute
+    public List<CustomerDTO> selectCustomerDTOsByIds(List<Integer> ids) {
+        var sql = """
+                SELECT id, name, email, age, gender, profile_image_id
+                FROM customer
+                WHERE id = ANY(?)
+                """;
+
+        return jdbcTemplate.query(
+                sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("integer", ids.toArray())),
+                customerDTORowMapper
+        );
+    }
+
+    @Override
+    @Transactional
     public void insertCustomer(Customer customer) {
         var sql = """
                 INSERT INTO customer(name, email, password, age, gender)
                 VALUES (?, ?, ?, ?, ?)
                 """;
-        jdbcTemplate.update(sql, customer.getName(), customer.getEmail(), customer.getPassword(), customer.getAge(), customer.getGender().name());
+        //generated id is set on the customer like JPA does, callers index the new customer by it
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, new String[]{"id"});
+            statement.setString(1, customer.getName());
+            statement.setString(2, customer.getEmail());
+            statement.setString(3, customer.getPassword());
+            statement.setInt(4, customer.getAge());
+            statement.setString(5, customer.getGender().name());
+            return statement;
+        }, keyHolder);
+        customer.setId(keyHolder.getKeyAs(Integer.class));
     }
 
     @Override
+    @ReadOnlyRoute
     public boolean existPersonWithEmail(String email) {
         var sql = """
                 SELECT count(id)
                 FROM customer
                 WHERE email = ?
                 """;
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, email);
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, Customer.canonicalEmail(email));
         return count != null && count > 0;
     }
 
     @Override
+    @ReadOnlyRoute
     public boolean existPersonWithId(Integer id) {
         var sql = """
                 SELECT count(id)
@@ -81,6 +178,7 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
     }
 
     @Override
+    @Transactional
     public void deleteCustomerById(Integer id) {
         var sql = """
                 DELETE FROM customer
@@ -90,57 +188,187 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
     }
 
     @Override
+    @Transactional
     public void updateCustomer(Customer update) {
+        //one statement for all changed columns, postgres writes a new row version per UPDATE anyway
+        List<String> columns = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
         if (update.getName() != null) {
-            String sql = "UPDATE customer SET name = ? WHERE id = ?";
-            int result = jdbcTemplate.update(sql, update.getName(), update.getId());
-            System.out.println("update customer name result = " + result);
+            columns.add("name = ?");
+            args.add(update.getName());
         }
-
         if (update.getAge() != null) {
-            String sql = "UPDATE customer SET age = ? WHERE id = ?";
-            int result = jdbcTemplate.update(sql, update.getAge(), update.getId());
-            System.out.println("update customer age result = " + result);
+            columns.add("age = ?");
+            args.add(update.getAge());
         }
-
         if (update.getEmail() != null) {
-            String sql = "UPDATE customer SET email = ? WHERE id = ?";
-            int result = jdbcTemplate.update(sql, update.getEmail(), update.getId());
-            System.out.println("update customer email result = " + result);
+            columns.add("email = ?");
+            args.add(update.getEmail());
         }
-
         if (update.getGender() != null) {
-            String sql = "UPDATE customer SET gender = ? WHERE id = ?";
-            int result = jdbcTemplate.update(sql, update.getGender().name(), update.getId());
-            System.out.println("update customer gender result = " + result);
+            columns.add("gender = ?");
+            args.add(update.getGender().name());
         }
-
         if (update.getPassword() != null) {
-            String sql = "UPDATE customer SET password = ? WHERE id = ?";
-            int result = jdbcTemplate.update(sql, update.getPassword(), update.getId());
-            System.out.println("update customer password result = " + result);
+            columns.add("password = ?");
+            args.add(update.getPassword());
         }
+        if (columns.isEmpty()) {
+            return;
+        }
+
+        String sql = "UPDATE customer SET " + String.join(", ", columns) + ", version = version + 1 WHERE id = ?";
+        args.add(update.getId());
+        //compare-and-set when the caller read a version, without one the update is unconditional
+        if (update.getVersion() != null) {
+            sql += " AND version = ?";
+            args.add(update.getVersion());
+        }
+
+        int updated = jdbcTemplate.update(sql, args.toArray());
+        if (update.getVersion() == null) {
+            return;
+        }
+        if (updated == 0) {
+            throw new OptimisticLockingFailureException(
+                    "Customer with id [%s] was modified concurrently, version [%s] is stale".formatted(update.getId(), update.getVersion()));
+        }
+        update.setVersion(update.getVersion() + 1);
     }
 
     @Override
+    @ReadOnlyRoute
     public Optional<Customer> selectUserByEmail(String email) {
         var sql = """
-                SELECT id, name, email, password, age, gender, profile_image_id
+                SELECT id, name, email, password, age, gender, profile_image_id, version
                 FROM customer
                 WHERE email = ?
                 """;
 
-        return jdbcTemplate.query(sql, customerRowMapper, email).stream().findFirst();
+        return jdbcTemplate.query(sql, customerRowMapper, Customer.canonicalEmail(email)).stream().findFirst();
     }
 
     @Override
+    @Transactional
     public void updateProfileImageId(String profileImageId, Integer customerId) {
         var sql = """
                 UPDATE customer
-                SET profile_image_id = ?
+                SET profile_image_id = ?, version = version + 1
                 WHERE id = ?
                 """;
 
         jdbcTemplate.update(sql, profileImageId, customerId);
     }
+
+    @Override
+    @ReadOnlyRoute
+    public Optional<VersionedCustomerDTO> selectVersionedCustomerDTOById(Integer id) {
+        var sql = """
+                SELECT id, name, email, age, gender, profile_image_id, version
+                FROM customer
+                WHERE id = ?
+                """;
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new VersionedCustomerDTO(
+                customerDTORowMapper.mapRow(rs, rowNum),
+                rs.getLong("version")
+        ), id).stream().findFirst();
+    }
+
+    @Override
+    @ReadOnlyRoute
+    public String selectAllCustomersVersion() {
+        //ids and versions of the rows of selectAllCustomerDTOs, any insert, delete or update among them changes it
+        var sql = """
+                SELECT md5(coalesce(string_agg(id || ':' || version, ',' ORDER BY id), ''))
+                FROM (
+                    SELECT id, version
+                    FROM customer
+                    ORDER BY id
+                    LIMIT 50
+                ) c
+                """;
+
+        return jdbcTemplate.queryForObject(sql, String.class);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CustomerSearchHit> searchCustomerDTOs(CustomerSearchQuery query, CustomerSearchCursor after, int limit, Duration statementTimeout) {
+        //local to the surrounding transaction, the pooled connection keeps its default timeout
+        jdbcTemplate.queryForObject("SELECT set_config('statement_timeout', ?, true)", String.class, statementTimeout.toMillis() + "ms");
+
+        //every condition of the WHERE is served by the pg_trgm gin indexes (V6 migration), prefix matches rank first
+        var sql = """
+                SELECT id, name, email, age, gender, profile_image_id, score
+                FROM (
+                    SELECT id, name, email, age, gender, profile_image_id,
+                           CAST(CASE WHEN name ILIKE :prefix OR name ILIKE :wordPrefix OR email LIKE :prefix THEN 1 ELSE 0 END
+                                + greatest(similarity(name, :query), similarity(email, :query)) AS real) AS score
+                    FROM customer
+                    WHERE name ILIKE :contains OR email LIKE :contains OR name % :query OR email % :query
+                ) matches
+                WHERE score < :afterScore OR (score = :afterScore AND id > :afterId)
+                ORDER BY score DESC, id
+                LIMIT :limit
+                """;
+        var parameters = new MapSqlParameterSource()
+                .addValue("query", query.text())
+                .addValue("prefix", query.prefix())
+                .addValue("wordPrefix", query.wordPrefix())
+                .addValue("contains", query.contains())
+                .addValue("afterScore", after.score())
+                .addValue("afterId", after.id())
+                .addValue("limit", limit);
+
+        try {
+            return namedParameterJdbcTemplate.query(sql, parameters, (rs, rowNum) -> new CustomerSearchHit(
+                    customerDTORowMapper.mapRow(rs, rowNum),
+                    rs.getFloat("score")
+            ));
+        } catch (DataAccessException e) {
+            //spring maps the whole 57 class to resource failure, a cancelled search is a timeout
+            if (e.getMostSpecificCause() instanceof SQLException sqlException
+                    && QUERY_CANCELED.equals(sqlException.getSQLState())) {
+                throw new QueryTimeoutException("Customer search exceeded statement timeout of %s".formatted(statementTimeout), e);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    @ReadOnlyRoute
+    public List<CustomerStatsRow> selectCustomerStats() {
+        var sql = """
+                SELECT gender, age, count(*) AS customers
+                FROM customer
+                GROUP BY gender, age
+                """;
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new CustomerStatsRow(
+                Gender.valueOf(rs.getString("gender")),
+                rs.getInt("age"),
+                rs.getLong("customers")
+        ));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamCustomerSuggestions(Consumer<CustomerSuggestion> consumer) {
+        var sql = """
+                SELECT id, name, email
+                FROM customer
+                """;
+
+        //postgres only streams with a fetch size inside a transaction, otherwise all rows are read into memory first
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(SUGGESTION_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(new CustomerSuggestion(
+                rs.getInt("id"),
+                rs.getString("name"),
+                rs.getString("email")
+        )));
+    }
 }
@@ -1,15 +1,26 @@
 package com.mataycode.customer;
 
+import com.mataycode.datasource.ReadOnlyRoute;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Repository("jpa")
 public class CustomerJPADataAccessService implements CustomerDao {
 
+    //ordered like the jdbc queries, a page without order is not stable between statements
+    static final Pageable FIRST_PAGE = PageRequest.of(0, 50, Sort.by("id"));
+
     private final CustomerRepository customerRepository;
 
     public CustomerJPADataAccessService(CustomerRepository customerRepository) {
@@ -17,48 +28,160 @@ public class CustomerJPADataAccessService implements CustomerDao {
     }
 
     @Override
+    @ReadOnlyRoute
     public List<Customer> selectAllCustomers() {
-        Page<Customer> page = customerRepository.findAll(Pageable.ofSize(50));
+        Page<Customer> page = customerRepository.findAll(FIRST_PAGE);
         return page.getContent();
     }
 
     @Override
+    @ReadOnlyRoute
     public Optional<Customer> selectCustomerById(Integer id) {
         return customerRepository.findById(id);
     }
 
     @Override
+    @ReadOnlyRoute
+    public List<Customer> selectCustomersByIds(List<Integer> ids) {
+        return customerRepository.findAllById(ids);
+    }
+
+    @Override
+    @ReadOnlyRoute
+    public List<CustomerDTO> selectAllCustomerDTOs() {
+        return customerRepository.findAllViews(FIRST_PAGE)
+                .stream()
+                .map(CustomerView::toDTO)
+                .toList();
+    }
+
+    @Override
+    @ReadOnlyRoute
+    public Optional<CustomerDTO> selectCustomerDTOById(Integer id) {
+        return customerRepository.findViewById(id).map(CustomerView::toDTO);
+    }
+
+    @Override
+    @ReadOnlyRoute
+    public List<CustomerDTO> selectCustomerDTOsByIds(List<Integer> ids) {
+        return customerRepository.findViewsByIds(ids)
+                .stream()
+                .map(CustomerView::toDTO)
+                .toList();
+    }
+
+    @Override
+    @Transactional
     public void insertCustomer(Customer customer) {
         customerRepository.save(customer);
     }
 
     @Override
+    @ReadOnlyRoute
     public boolean existPersonWithEmail(String email) {
-        return customerRepository.existsCustomerByEmail(email);
+        return customerRepository.existsCustomerByEmail(Customer.canonicalEmail(email));
     }
 
     @Override
+    @ReadOnlyRoute
     public boolean existPersonWithId(Integer id) {
         return customerRepository.existsCustomerById(id);
     }
 
     @Override
+    @Transactional
     public void deleteCustomerById(Integer id) {
         customerRepository.deleteById(id);
     }
 
     @Override
+    @Transactional
     public void updateCustomer(Customer update) {
-        customerRepository.save(update);
+        //update only carries the changed fields, merging it would null the others
+        if (update.getName() == null && update.getAge() == null && update.getEmail() == null
+                && update.getGender() == null && update.getPassword() == null) {
+            return;
+        }
+        Customer customer = customerRepository.findById(update.getId()).orElse(null);
+        //compare-and-set when the caller read a version, like the jdbc implementation
+        if (update.getVersion() != null && (customer == null || !update.getVersion().equals(customer.getVersion()))) {
+            throw new OptimisticLockingFailureException(
+                    "Customer with id [%s] was modified concurrently, version [%s] is stale".formatted(update.getId(), update.getVersion()));
+        }
+        if (customer == null) {
+            return;
+        }
+        if (update.getName() != null) {
+            customer.setName(update.getName());
+        }
+        if (update.getAge() != null) {
+            customer.setAge(update.getAge());
+        }
+        if (update.getEmail() != null) {
+            customer.setEmail(update.getEmail());
+        }
+        if (update.getGender() != null) {
+            customer.setGender(update.getGender());
+        }
+        if (update.getPassword() != null) {
+            customer.setPassword(update.getPassword());
+        }
+        //flush increments the version, and fails if another transaction wrote since the load
+        customerRepository.flush();
+        update.setVersion(customer.getVersion());
     }
 
     @Override
+    @ReadOnlyRoute
     public Optional<Customer> selectUserByEmail(String email) {
-        return customerRepository.findCustomerByEmail(email);
+        //the stored email is canonical
+        return customerRepository.findCustomerByEmail(Customer.canonicalEmail(email));
     }
 
     @Override
+    @Transactional
     public void updateProfileImageId(String profileImageId, Integer customerId) {
         customerRepository.updateProfileImageId(profileImageId, customerId);
     }
+
+    @Override
+    @ReadOnlyRoute
+    public Optional<VersionedCustomerDTO> selectVersionedCustomerDTOById(Integer id) {
+        return customerRepository.findVersionedViewById(id);
+    }
+
+    @Override
+    @ReadOnlyRoute
+    public String selectAllCustomersVersion() {
+        return customerRepository.findAllCustomersVersion();
+    }
+
+    @Override
+    @ReadOnlyRoute
+    public List<CustomerStatsRow> selectCustomerStats() {
+        return customerRepository.findStats();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamCustomerSuggestions(Consumer<CustomerSuggestion> consumer) {
+        try (Stream<CustomerSuggestion> suggestions = customerRepository.streamSuggestions()) {
+            suggestions.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CustomerSearchHit> searchCustomerDTOs(CustomerSearchQuery query, CustomerSearchCursor after, int limit, Duration statementTimeout) {
+        customerRepository.setLocalStatementTimeout(statementTimeout.toMillis() + "ms");
+        return customerRepository.search(
+                        query.text(), query.prefix(), query.wordPrefix(), query.contains(),
+                        after.score(), after.id(), limit)
+                .stream()
+                .map(row -> new CustomerSearchHit(
+                        CustomerDTOMapper.toDTO(row.getId(), row.getName(), row.getEmail(),
+                                Gender.valueOf(row.getGender()), row.getAge(), row.getProfileImageId()),
+                        row.getScore()))
+                .toList();
+    }
 }
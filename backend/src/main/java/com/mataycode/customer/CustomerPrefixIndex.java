@@ -0,0 +1,485 @@
+package com.mataycode.customer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * In-memory prefix index of customer names and emails for typeahead, answered without a database round trip.
+ * <p>
+ * The bulk of the index is an immutable snapshot: the lower-cased name, every later word of it and the email of each
+ * customer are sorted and packed into one byte array with int offsets, so a lookup is a binary search followed by
+ * a scan of the matching range. Changes made since the snapshot sit in a small overlay that wins over the snapshot
+ * and is merged into a new snapshot in the background once it reaches compactThreshold entries.
+ * Memory is bounded by maxCustomers - a load that would go beyond it switches the index off (not ready).
+ * Use {@link #maxCustomersFor(long, double)} to derive it from the heap.
+ */
+public class CustomerPrefixIndex implements MeterBinder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CustomerPrefixIndex.class);
+
+    //heap per customer while a rebuild runs, for ~16 byte names and ~24 byte emails with 3 terms each:
+    //old snapshot (~110) + builder arrays with up to 2x growth slack (~270) + trimmed copies of the new snapshot (~110)
+    static final int BUILD_PEAK_BYTES_PER_CUSTOMER = 512;
+    //below it insertion sort beats partitioning
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final int maxCustomers;
+    private final int compactThreshold;
+    private final Executor compactionExecutor;
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    //writers of state take stateLock, lookups read the volatile state without locking
+    private final Object stateLock = new Object();
+    //one rebuild at a time, so an older rebuild can never replace a newer snapshot
+    private final Object rebuildLock = new Object();
+    private volatile State state = new State(Snapshot.EMPTY, Map.of(), false);
+
+    //overlay maps are never modified once published, a removed customer is an empty value
+    private record State(Snapshot snapshot, Map<Integer, Optional<CustomerSuggestion>> overlay, boolean ready) {
+    }
+
+    public CustomerPrefixIndex(int maxCustomers, int compactThreshold, Executor compactionExecutor) {
+        this.maxCustomers = maxCustomers;
+        this.compactThreshold = compactThreshold;
+        this.compactionExecutor = compactionExecutor;
+    }
+
+    //customers that fit into heapShare of the heap while a snapshot is rebuilt next to the current one
+    public static int maxCustomersFor(long maxHeapBytes, double heapShare) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) (maxHeapBytes * heapShare) / BUILD_PEAK_BYTES_PER_CUSTOMER);
+    }
+
+    public boolean isReady() {
+        return state.ready();
+    }
+
+    public int size() {
+        return state.snapshot().size();
+    }
+
+    public long estimatedBytes() {
+        return state.snapshot().estimatedBytes();
+    }
+
+    //recently changed customers first, then snapshot matches in term order
+    public List<CustomerSuggestion> suggest(String prefix, int limit) {
+        State current = state;
+        String normalized = normalize(prefix);
+        Map<Integer, CustomerSuggestion> found = new LinkedHashMap<>();
+        for (Optional<CustomerSuggestion> change : current.overlay().values()) {
+            if (found.size() == limit) {
+                break;
+            }
+            change.filter(suggestion -> matches(suggestion, normalized))
+                    .ifPresent(suggestion -> found.put(suggestion.id(), suggestion));
+        }
+
+        Snapshot snapshot = current.snapshot();
+        byte[] key = normalized.getBytes(StandardCharsets.UTF_8);
+        for (int term = snapshot.lowerBound(key);
+             term < snapshot.termCount() && found.size() < limit && snapshot.termStartsWith(term, key);
+             term++) {
+            int customer = snapshot.termOwner(term);
+            int id = snapshot.id(customer);
+            //the overlay holds a newer version or a removal
+            if (!current.overlay().containsKey(id) && !found.containsKey(id)) {
+                found.put(id, snapshot.suggestion(customer));
+            }
+        }
+        return List.copyOf(found.values());
+    }
+
+    public void put(CustomerSuggestion suggestion) {
+        change(Objects.requireNonNull(suggestion.id()), Optional.of(suggestion));
+    }
+
+    public void remove(Integer id) {
+        change(id, Optional.empty());
+    }
+
+    private void change(Integer id, Optional<CustomerSuggestion> change) {
+        int overlaySize;
+        synchronized (stateLock) {
+            Map<Integer, Optional<CustomerSuggestion>> overlay = new HashMap<>(state.overlay());
+            overlay.put(id, change);
+            state = new State(state.snapshot(), overlay, state.ready());
+            overlaySize = overlay.size();
+        }
+        if (overlaySize >= compactThreshold && compactionScheduled.compareAndSet(false, true)) {
+            compactionExecutor.execute(this::compact);
+        }
+    }
+
+    //merges the overlay into a new snapshot
+    public void compact() {
+        compactionScheduled.set(false);
+        synchronized (rebuildLock) {
+            State base = state;
+            if (base.overlay().isEmpty()) {
+                return;
+            }
+            try {
+                Snapshot.Builder builder = new Snapshot.Builder(maxCustomers);
+                base.snapshot().forEach(suggestion -> {
+                    if (!base.overlay().containsKey(suggestion.id())) {
+                        builder.add(suggestion);
+                    }
+                });
+                base.overlay().values().forEach(change -> change.ifPresent(builder::add));
+                install(builder.build(), base.overlay(), state.ready());
+            } catch (CapacityExceededException e) {
+                switchOff();
+            }
+        }
+    }
+
+    /**
+     * Replaces the snapshot with customers streamed by the source. Changes recorded while loading stay in the
+     * overlay, they are at least as new as what the source returned.
+     */
+    public boolean reload(Consumer<Consumer<CustomerSuggestion>> source) {
+        synchronized (rebuildLock) {
+            State base = state;
+            Snapshot.Builder builder = new Snapshot.Builder(maxCustomers);
+            try {
+                source.accept(builder::add);
+            } catch (CapacityExceededException e) {
+                switchOff();
+                return false;
+            }
+            install(builder.build(), base.overlay(), true);
+            return true;
+        }
+    }
+
+    private void install(Snapshot snapshot, Map<Integer, Optional<CustomerSuggestion>> merged, boolean ready) {
+        synchronized (stateLock) {
+            Map<Integer, Optional<CustomerSuggestion>> overlay = new HashMap<>(state.overlay());
+            //only changes that are in the snapshot now, a newer change of the same customer stays
+            merged.forEach(overlay::remove);
+            state = new State(snapshot, overlay, ready);
+        }
+    }
+
+    private void switchOff() {
+        LOGGER.warn("More than [{}] customers, typeahead index is switched off until the next reload", maxCustomers);
+        synchronized (stateLock) {
+            state = new State(Snapshot.EMPTY, Map.of(), false);
+        }
+    }
+
+    private static boolean matches(CustomerSuggestion suggestion, String prefix) {
+        String name = normalize(suggestion.name());
+        return name.startsWith(prefix)
+                || name.contains(" " + prefix)
+                || normalize(suggestion.email()).startsWith(prefix);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("customer.typeahead.index.customers", this, CustomerPrefixIndex::size)
+                .description("Customers in the typeahead index snapshot")
+                .register(registry);
+        Gauge.builder("customer.typeahead.index.size", this, CustomerPrefixIndex::estimatedBytes)
+                .description("Estimated heap used by the typeahead index snapshot")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+    }
+
+    //thrown while building to stop streaming customers as soon as the index is full
+    private static final class CapacityExceededException extends RuntimeException {
+        private CapacityExceededException() {
+            super(null, null, false, false);
+        }
+    }
+
+    static final class Snapshot {
+
+        static final Snapshot EMPTY = new Builder(0).build();
+
+        //per customer: name as entered, canonical email, lower-cased name when it differs from the name
+        private final byte[] bytes;
+        private final int[] ids;
+        private final int[] nameFrom;
+        private final int[] emailFrom;
+        private final int[] emailTo;
+        //sorted terms, each a slice of bytes owned by one customer
+        private final int[] termFrom;
+        private final int[] termTo;
+        private final int[] termOwner;
+
+        private Snapshot(byte[] bytes, int[] ids, int[] nameFrom, int[] emailFrom, int[] emailTo,
+                         int[] termFrom, int[] termTo, int[] termOwner) {
+            this.bytes = bytes;
+            this.ids = ids;
+            this.nameFrom = nameFrom;
+            this.emailFrom = emailFrom;
+            this.emailTo = emailTo;
+            this.termFrom = termFrom;
+            this.termTo = termTo;
+            this.termOwner = termOwner;
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        int termCount() {
+            return termFrom.length;
+        }
+
+        long estimatedBytes() {
+            return bytes.length + 4L * (4L * ids.length + 3L * termFrom.length);
+        }
+
+        int id(int customer) {
+            return ids[customer];
+        }
+
+        int termOwner(int term) {
+            return termOwner[term];
+        }
+
+        //first term not below key
+        int lowerBound(byte[] key) {
+            int low = 0;
+            int high = termFrom.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (Arrays.compareUnsigned(bytes, termFrom[middle], termTo[middle], key, 0, key.length) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        boolean termStartsWith(int term, byte[] key) {
+            int from = termFrom[term];
+            return termTo[term] - from >= key.length
+                    && Arrays.equals(bytes, from, from + key.length, key, 0, key.length);
+        }
+
+        CustomerSuggestion suggestion(int customer) {
+            return new CustomerSuggestion(
+                    ids[customer],
+                    new String(bytes, nameFrom[customer], emailFrom[customer] - nameFrom[customer], StandardCharsets.UTF_8),
+                    new String(bytes, emailFrom[customer], emailTo[customer] - emailFrom[customer], StandardCharsets.UTF_8)
+            );
+        }
+
+        void forEach(Consumer<CustomerSuggestion> action) {
+            for (int customer = 0; customer < ids.length; customer++) {
+                action.accept(suggestion(customer));
+            }
+        }
+
+        static final class Builder {
+
+            private final int maxCustomers;
+            private byte[] bytes = new byte[1024];
+            private int byteCount;
+            private int[] ids = new int[64];
+            private int[] nameFrom = new int[64];
+            private int[] emailFrom = new int[64];
+            private int[] emailTo = new int[64];
+            private int customerCount;
+            private int[] termFrom = new int[256];
+            private int[] termTo = new int[256];
+            private int[] termOwner = new int[256];
+            private int termCount;
+
+            Builder(int maxCustomers) {
+                this.maxCustomers = maxCustomers;
+            }
+
+            void add(CustomerSuggestion suggestion) {
+                if (customerCount == maxCustomers) {
+                    throw new CapacityExceededException();
+                }
+                if (customerCount == ids.length) {
+                    int capacity = ids.length * 2;
+                    ids = Arrays.copyOf(ids, capacity);
+                    nameFrom = Arrays.copyOf(nameFrom, capacity);
+                    emailFrom = Arrays.copyOf(emailFrom, capacity);
+                    emailTo = Arrays.copyOf(emailTo, capacity);
+                }
+                int customer = customerCount++;
+                byte[] name = (suggestion.name() == null ? "" : suggestion.name()).getBytes(StandardCharsets.UTF_8);
+                byte[] lowerName = normalize(suggestion.name()).getBytes(StandardCharsets.UTF_8);
+
+                ids[customer] = suggestion.id();
+                nameFrom[customer] = append(name);
+                emailFrom[customer] = append(normalize(suggestion.email()).getBytes(StandardCharsets.UTF_8));
+                emailTo[customer] = byteCount;
+                addTerm(emailFrom[customer], emailTo[customer], customer);
+
+                //the name bytes double as the term when the name is already lower-cased and trimmed
+                int lowerNameFrom = Arrays.equals(name, lowerName) ? nameFrom[customer] : append(lowerName);
+                int lowerNameTo = lowerNameFrom + lowerName.length;
+                addTerm(lowerNameFrom, lowerNameTo, customer);
+                //every later word, so "smi" finds "John Smith"
+                for (int i = 0; i < lowerName.length - 1; i++) {
+                    if (lowerName[i] == ' ' && lowerName[i + 1] != ' ') {
+                        addTerm(lowerNameFrom + i + 1, lowerNameTo, customer);
+                    }
+                }
+            }
+
+            private int append(byte[] value) {
+                if (byteCount + value.length > bytes.length) {
+                    bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, byteCount + value.length));
+                }
+                int from = byteCount;
+                System.arraycopy(value, 0, bytes, from, value.length);
+                byteCount += value.length;
+                return from;
+            }
+
+            private void addTerm(int from, int to, int customer) {
+                if (termCount == termFrom.length) {
+                    int capacity = termFrom.length * 2;
+                    termFrom = Arrays.copyOf(termFrom, capacity);
+                    termTo = Arrays.copyOf(termTo, capacity);
+                    termOwner = Arrays.copyOf(termOwner, capacity);
+                }
+                termFrom[termCount] = from;
+                termTo[termCount] = to;
+                termOwner[termCount] = customer;
+                termCount++;
+            }
+
+            Snapshot build() {
+                //sorted in place, a boxed index array would cost more than the terms themselves
+                sortTerms(0, termCount, 2 * (32 - Integer.numberOfLeadingZeros(Math.max(termCount, 1))));
+                return new Snapshot(
+                        Arrays.copyOf(bytes, byteCount),
+                        Arrays.copyOf(ids, customerCount),
+                        Arrays.copyOf(nameFrom, customerCount),
+                        Arrays.copyOf(emailFrom, customerCount),
+                        Arrays.copyOf(emailTo, customerCount),
+                        Arrays.copyOf(termFrom, termCount),
+                        Arrays.copyOf(termTo, termCount),
+                        Arrays.copyOf(termOwner, termCount)
+                );
+            }
+
+            //introsort of the parallel term arrays by term bytes - quicksort, heapsort once too deep, insertion sort for short ranges
+            private void sortTerms(int from, int to, int depthLimit) {
+                while (to - from > INSERTION_SORT_THRESHOLD) {
+                    if (depthLimit-- == 0) {
+                        heapSortTerms(from, to);
+                        return;
+                    }
+                    int pivot = partitionTerms(from, to);
+                    //recurse into the smaller side, keeps the stack at log n
+                    if (pivot - from < to - pivot) {
+                        sortTerms(from, pivot, depthLimit);
+                        from = pivot + 1;
+                    } else {
+                        sortTerms(pivot + 1, to, depthLimit);
+                        to = pivot;
+                    }
+                }
+                for (int i = from + 1; i < to; i++) {
+                    for (int j = i; j > from && compareTerms(j - 1, j) > 0; j--) {
+                        swapTerms(j - 1, j);
+                    }
+                }
+            }
+
+            //hoare partition around the median of first, middle and last, returns the final position of the pivot
+            private int partitionTerms(int from, int to) {
+                int last = to - 1;
+                int middle = (from + last) >>> 1;
+                if (compareTerms(middle, from) < 0) {
+                    swapTerms(middle, from);
+                }
+                if (compareTerms(last, from) < 0) {
+                    swapTerms(last, from);
+                }
+                if (compareTerms(last, middle) < 0) {
+                    swapTerms(last, middle);
+                }
+                swapTerms(from, middle);
+                int low = from;
+                int high = to;
+                while (true) {
+                    do {
+                        low++;
+                    } while (compareTerms(low, from) < 0);
+                    do {
+                        high--;
+                    } while (compareTerms(high, from) > 0);
+                    if (low >= high) {
+                        swapTerms(from, high);
+                        return high;
+                    }
+                    swapTerms(low, high);
+                }
+            }
+
+            private void heapSortTerms(int from, int to) {
+                int count = to - from;
+                for (int root = count / 2 - 1; root >= 0; root--) {
+                    siftDownTerms(from, root, count);
+                }
+                for (int end = count - 1; end > 0; end--) {
+                    swapTerms(from, from + end);
+                    siftDownTerms(from, 0, end);
+                }
+            }
+
+            private void siftDownTerms(int from, int root, int count) {
+                while (2 * root + 1 < count) {
+                    int child = 2 * root + 1;
+                    if (child + 1 < count && compareTerms(from + child, from + child + 1) < 0) {
+                        child++;
+                    }
+                    if (compareTerms(from + root, from + child) >= 0) {
+                        return;
+                    }
+                    swapTerms(from + root, from + child);
+                    root = child;
+                }
+            }
+
+            private int compareTerms(int a, int b) {
+                return Arrays.compareUnsigned(bytes, termFrom[a], termTo[a], bytes, termFrom[b], termTo[b]);
+            }
+
+            private void swapTerms(int a, int b) {
+                swap(termFrom, a, b);
+                swap(termTo, a, b);
+                swap(termOwner, a, b);
+            }
+
+            private static void swap(int[] values, int a, int b) {
+                int value = values[a];
+                values[a] = values[b];
+                values[b] = value;
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.mataycode.customer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//fills the typeahead index off the startup path, until then typeahead is served by the database search
+public class CustomerPrefixIndexLoader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CustomerPrefixIndexLoader.class);
+
+    private final CustomerPrefixIndex customerPrefixIndex;
+    private final CustomerDao customerDao;
+    private final CustomerTypeaheadProperties properties;
+    private final ScheduledExecutorService customerTypeaheadExecutor;
+
+    public CustomerPrefixIndexLoader(CustomerPrefixIndex customerPrefixIndex,
+                                     CustomerDao customerDao,
+                                     CustomerTypeaheadProperties properties,
+                                     ScheduledExecutorService customerTypeaheadExecutor) {
+        this.customerPrefixIndex = customerPrefixIndex;
+        this.customerDao = customerDao;
+        this.properties = properties;
+        this.customerTypeaheadExecutor = customerTypeaheadExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleReload() {
+        long intervalMillis = properties.getReloadInterval().toMillis();
+        customerTypeaheadExecutor.scheduleWithFixedDelay(this::reload, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean reload() {
+        long start = System.nanoTime();
+        try {
+            boolean loaded = customerPrefixIndex.reload(customerDao::streamCustomerSuggestions);
+            if (loaded) {
+                LOGGER.info("Typeahead index loaded [{}] customers (~{} bytes) in {} ms",
+                        customerPrefixIndex.size(),
+                        customerPrefixIndex.estimatedBytes(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            return loaded;
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to load typeahead index, keeping the previous one", e);
+            return false;
+        }
+    }
+}
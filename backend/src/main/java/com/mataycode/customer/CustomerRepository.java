@@ -1,17 +1,76 @@
 package com.mataycode.customer;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CustomerRepository extends JpaRepository<Customer, Integer> {
 
+    @Query("SELECT new com.mataycode.customer.CustomerView(c.id, c.name, c.email, c.gender, c.age, c.profileImageId) FROM Customer c")
+    List<CustomerView> findAllViews(Pageable pageable);
+    @Query("SELECT new com.mataycode.customer.CustomerView(c.id, c.name, c.email, c.gender, c.age, c.profileImageId) FROM Customer c WHERE c.id = ?1")
+    Optional<CustomerView> findViewById(Integer id);
+    @Query("SELECT new com.mataycode.customer.CustomerView(c.id, c.name, c.email, c.gender, c.age, c.profileImageId) FROM Customer c WHERE c.id IN ?1")
+    List<CustomerView> findViewsByIds(Collection<Integer> ids);
+    Optional<Customer> findCustomerByEmail(String email);
     boolean existsCustomerByEmail(String email);
     boolean existsCustomerById(Integer id);
-    Optional<Customer> findCustomerByEmail(String email);
     @Modifying(clearAutomatically = true)
-    @Query("UPDATE Customer c SET  c.profileImageId = ?1 WHERE c.id = ?2")
+    @Query("UPDATE Customer c SET c.profileImageId = ?1, c.version = c.version + 1 WHERE c.id = ?2")
     int updateProfileImageId(String profileImageId, Integer customerId);
+    @Query("SELECT new com.mataycode.customer.VersionedCustomerDTO(c.id, c.name, c.email, c.gender, c.age, c.profileImageId, c.version) FROM Customer c WHERE c.id = ?1")
+    Optional<VersionedCustomerDTO> findVersionedViewById(Integer customerId);
+    @Query(value = """
+            SELECT md5(coalesce(string_agg(id || ':' || version, ',' ORDER BY id), ''))
+            FROM (SELECT id, version FROM customer ORDER BY id LIMIT 50) c
+            """, nativeQuery = true)
+    String findAllCustomersVersion();
+    @Query("SELECT new com.mataycode.customer.CustomerStatsRow(c.gender, c.age, count(c)) FROM Customer c GROUP BY c.gender, c.age")
+    List<CustomerStatsRow> findStats();
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.mataycode.customer.CustomerSuggestion(c.id, c.name, c.email) FROM Customer c")
+    Stream<CustomerSuggestion> streamSuggestions();
+    //statement timeout of the surrounding transaction only
+    @Query(value = "SELECT set_config('statement_timeout', ?1, true)", nativeQuery = true)
+    String setLocalStatementTimeout(String timeout);
+    @Query(value = """
+            SELECT id, name, email, age, gender, profile_image_id AS "profileImageId", score
+            FROM (
+                SELECT id, name, email, age, gender, profile_image_id,
+                       CAST(CASE WHEN name ILIKE :prefix OR name ILIKE :wordPrefix OR email LIKE :prefix THEN 1 ELSE 0 END
+                            + greatest(similarity(name, :query), similarity(email, :query)) AS real) AS score
+                FROM customer
+                WHERE name ILIKE :contains OR email LIKE :contains OR name % :query OR email % :query
+            ) matches
+            WHERE score < :afterScore OR (score = :afterScore AND id > :afterId)
+            ORDER BY score DESC, id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<SearchRow> search(@Param("query") String query,
+                           @Param("prefix") String prefix,
+                           @Param("wordPrefix") String wordPrefix,
+                           @Param("contains") String contains,
+                           @Param("afterScore") float afterScore,
+                           @Param("afterId") int afterId,
+                           @Param("limit") int limit);
+
+    interface SearchRow {
+        Integer getId();
+        String getName();
+        String getEmail();
+        Integer getAge();
+        String getGender();
+        String getProfileImageId();
+        Float getScore();
+    }
 }
@@ -10,7 +10,7 @@ import java.sql.SQLException;
 public class CustomerRowMapper implements RowMapper<Customer> {
     @Override
     public Customer mapRow(ResultSet rs, int rowNum) throws SQLException {
-        return new Customer(
+        Customer customer = new Customer(
                 rs.getInt("id"),
                 rs.getString("name"),
                 rs.getString("email"),
@@ -19,5 +19,7 @@ public class CustomerRowMapper implements RowMapper<Customer> {
                 Gender.valueOf(rs.getString("gender")),
                 rs.getString("profile_image_id")
         );
+        customer.setVersion(rs.getLong("version"));
+        return customer;
     }
 }
@@ -0,0 +1,35 @@
+package com.mataycode.customer;
+
+import com.mataycode.exception.RequestValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+//keyset position in search results ordered by score descending, then id
+public record CustomerSearchCursor(float score, int id) {
+
+    //scores are at most 2 (prefix bonus + similarity), so every hit sorts after this
+    static final CustomerSearchCursor FIRST = new CustomerSearchCursor(Float.MAX_VALUE, 0);
+
+    static CustomerSearchCursor of(CustomerSearchHit hit) {
+        return new CustomerSearchCursor(hit.score(), hit.customer().id());
+    }
+
+    public String encode() {
+        String position = Float.toString(score) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CustomerSearchCursor decode(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf(':');
+            return new CustomerSearchCursor(
+                    Float.parseFloat(position.substring(0, separator)),
+                    Integer.parseInt(position.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new RequestValidationException("Invalid search cursor [%s]".formatted(cursor));
+        }
+    }
+}
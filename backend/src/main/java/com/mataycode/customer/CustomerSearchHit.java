@@ -0,0 +1,5 @@
+package com.mataycode.customer;
+
+//search match with its rank, the score is part of the keyset cursor
+public record CustomerSearchHit(CustomerDTO customer, float score) {
+}
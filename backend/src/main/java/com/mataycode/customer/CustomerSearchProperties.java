@@ -0,0 +1,59 @@
+package com.mataycode.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "customer.search")
+public class CustomerSearchProperties {
+
+    //latency budget of one search, the database cancels the query after this
+    private Duration statementTimeout = Duration.ofMillis(500);
+    //shorter queries have no trigram to use the index with
+    private int minQueryLength = 3;
+    private int maxQueryLength = 100;
+    private int defaultPageSize = 20;
+    private int maxPageSize = 50;
+
+    public Duration getStatementTimeout() {
+        return statementTimeout;
+    }
+
+    public void setStatementTimeout(Duration statementTimeout) {
+        this.statementTimeout = statementTimeout;
+    }
+
+    public int getMinQueryLength() {
+        return minQueryLength;
+    }
+
+    public void setMinQueryLength(int minQueryLength) {
+        this.minQueryLength = minQueryLength;
+    }
+
+    public int getMaxQueryLength() {
+        return maxQueryLength;
+    }
+
+    public void setMaxQueryLength(int maxQueryLength) {
+        this.maxQueryLength = maxQueryLength;
+    }
+
+    public int getDefaultPageSize() {
+        return defaultPageSize;
+    }
+
+    public void setDefaultPageSize(int defaultPageSize) {
+        this.defaultPageSize = defaultPageSize;
+    }
+
+    public int getMaxPageSize() {
+        return maxPageSize;
+    }
+
+    public void setMaxPageSize(int maxPageSize) {
+        this.maxPageSize = maxPageSize;
+    }
+}
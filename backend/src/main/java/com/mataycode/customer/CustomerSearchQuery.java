@@ -0,0 +1,16 @@
+package com.mataycode.customer;
+
+import java.util.Locale;
+
+//search text with the LIKE patterns derived from it, wildcards typed by the user match literally
+public record CustomerSearchQuery(String text, String prefix, String wordPrefix, String contains) {
+
+    public static CustomerSearchQuery of(String text) {
+        String canonical = text.trim().toLowerCase(Locale.ROOT);
+        String escaped = canonical
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return new CustomerSearchQuery(canonical, escaped + "%", "% " + escaped + "%", "%" + escaped + "%");
+    }
+}
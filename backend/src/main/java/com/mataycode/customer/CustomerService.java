@@ -1,72 +1,226 @@
 package com.mataycode.customer;
 
+import com.mataycode.concurrent.SingleFlight;
 import com.mataycode.exception.DuplicateResourceException;
+import com.mataycode.exception.PreconditionFailedException;
 import com.mataycode.exception.RequestValidationException;
 import com.mataycode.exception.ResourceNotFoundException;
 import com.mataycode.s3.S3Buckets;
 import com.mataycode.s3.S3Service;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class CustomerService {
 
+    static final int MAX_LOOKUP_IDS = 100;
+
     private final CustomerDao customerDao;
     private final CustomerDTOMapper customerDTOMapper;
     private final PasswordEncoder passwordEncoder;
     private final S3Service s3Service;
     private final S3Buckets s3Buckets;
+    private final SingleFlight<Integer, Optional<VersionedCustomerDTO>> customerSingleFlight;
+    private final CustomerSearchProperties searchProperties;
+    private final CustomerPrefixIndex customerPrefixIndex;
+    private final CustomerTypeaheadProperties typeaheadProperties;
+    private final CustomerStats customerStats;
 
-    public CustomerService(@Qualifier("jdbc") CustomerDao customerDao, CustomerDTOMapper customerDTOMapper, PasswordEncoder passwordEncoder, S3Service s3Service, S3Buckets s3Buckets) {
+    public CustomerService(@Qualifier("jdbc") CustomerDao customerDao, CustomerDTOMapper customerDTOMapper, PasswordEncoder passwordEncoder, S3Service s3Service, S3Buckets s3Buckets, SingleFlight<Integer, Optional<VersionedCustomerDTO>> customerSingleFlight, CustomerSearchProperties searchProperties, CustomerPrefixIndex customerPrefixIndex, CustomerTypeaheadProperties typeaheadProperties, CustomerStats customerStats) {
         this.customerDao = customerDao;
         this.customerDTOMapper = customerDTOMapper;
         this.passwordEncoder = passwordEncoder;
         this.s3Service = s3Service;
         this.s3Buckets = s3Buckets;
+        this.customerSingleFlight = customerSingleFlight;
+        this.searchProperties = searchProperties;
+        this.customerPrefixIndex = customerPrefixIndex;
+        this.typeaheadProperties = typeaheadProperties;
+        this.customerStats = customerStats;
     }
 
     public List<CustomerDTO> getAllCustomers() {
-        return customerDao.selectAllCustomers()
-                .stream()
-                .map(customerDTOMapper)
-                .collect(Collectors.toList());
+        return customerDao.selectAllCustomerDTOs();
+    }
+
+    //computed in the database from ids and versions, the customers are only loaded when it does not match
+    public String getAllCustomersETag() {
+        return "W/\"%s\"".formatted(customerDao.selectAllCustomersVersion());
+    }
+
+    public String getCustomerETag(VersionedCustomerDTO customer) {
+        return customerETag(customer.customer().id(), customer.version());
+    }
+
+    //strong, the version changes with every write of the customer, so If-Match can compare it
+    private static String customerETag(Integer id, Long version) {
+        return "\"%s-%s\"".formatted(id, version);
+    }
+
+    //strong comparison (RFC 9110 13.1.1), a weak candidate never matches
+    private static boolean eTagMatches(String ifMatch, String eTag) {
+        if (ifMatch.trim().equals("*")) {
+            return true;
+        }
+        for (String candidate : ifMatch.split(",")) {
+            if (candidate.trim().equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public CustomerDTO getCustomerById(Integer id) {
-        return customerDao.selectCustomerById(id)
-                .map(customerDTOMapper)
+        return getVersionedCustomerById(id).customer();
+    }
+
+    //customer and the version of the same row, GET /{customerId} takes its ETag from it
+    public VersionedCustomerDTO getVersionedCustomerById(Integer id) {
+        return selectVersionedCustomerDTOById(id)
                 .orElseThrow(
                         () -> new ResourceNotFoundException("Customer with id [%s] not found".formatted(id))
                 );
     }
 
-    public void addCustomer(CustomerRegistrationRequest customerRegistrationRequest) {
+    //concurrent reads of the same customer share one query
+    private Optional<VersionedCustomerDTO> selectVersionedCustomerDTOById(Integer id) {
+        return customerSingleFlight.execute(
+                id,
+                () -> customerDao.selectVersionedCustomerDTOById(id)
+        );
+    }
+
+    public CustomerLookupResponse lookupCustomers(CustomerLookupRequest lookupRequest) {
+        if (lookupRequest.ids() == null || lookupRequest.ids().isEmpty()) {
+            throw new RequestValidationException("At least one customer id is required");
+        }
+
+        //remove duplicates but keep request order
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(lookupRequest.ids()));
+        if (ids.contains(null)) {
+            throw new RequestValidationException("Customer id cannot be null");
+        }
+        if (ids.size() > MAX_LOOKUP_IDS) {
+            throw new RequestValidationException("Cannot lookup more than [%s] customers at once".formatted(MAX_LOOKUP_IDS));
+        }
+
+        Map<Integer, CustomerDTO> customersById = customerDao.selectCustomerDTOsByIds(ids)
+                .stream()
+                .collect(Collectors.toMap(CustomerDTO::id, Function.identity()));
+
+        List<CustomerDTO> customers = new ArrayList<>(customersById.size());
+        List<Integer> missingIds = new ArrayList<>();
+        for (Integer id : ids) {
+            CustomerDTO customer = customersById.get(id);
+            if (customer != null) {
+                customers.add(customer);
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        return new CustomerLookupResponse(customers, missingIds);
+    }
+
+    public CustomerSearchResponse searchCustomers(String query, String cursor, Integer size) {
+        String text = query == null ? "" : query.trim();
+        if (text.length() < searchProperties.getMinQueryLength() || text.length() > searchProperties.getMaxQueryLength()) {
+            throw new RequestValidationException("Search query must have between [%s] and [%s] characters".formatted(
+                    searchProperties.getMinQueryLength(), searchProperties.getMaxQueryLength()));
+        }
+        int pageSize = size == null ? searchProperties.getDefaultPageSize() : size;
+        if (pageSize < 1 || pageSize > searchProperties.getMaxPageSize()) {
+            throw new RequestValidationException("Search page size must be between 1 and [%s]".formatted(searchProperties.getMaxPageSize()));
+        }
+        CustomerSearchCursor after = cursor == null ? CustomerSearchCursor.FIRST : CustomerSearchCursor.decode(cursor);
+
+        //one extra row tells whether there is a next page
+        List<CustomerSearchHit> hits = customerDao.searchCustomerDTOs(
+                CustomerSearchQuery.of(text), after, pageSize + 1, searchProperties.getStatementTimeout());
+        List<CustomerSearchHit> page = hits.subList(0, Math.min(pageSize, hits.size()));
+        String nextCursor = hits.size() > pageSize ? CustomerSearchCursor.of(page.get(page.size() - 1)).encode() : null;
+
+        return new CustomerSearchResponse(
+                page.stream().map(CustomerSearchHit::customer).toList(),
+                nextCursor
+        );
+    }
+
+    public CustomerStatsResponse getCustomerStats() {
+        //seeded on the request thread when asked before the first reconcile, otherwise only local deltas would be served
+        if (!customerStats.isReady()) {
+            customerStats.reconcile(customerDao.selectCustomerStats());
+        }
+        return customerStats.snapshot();
+    }
+
+    public List<CustomerSuggestion> suggestCustomers(String prefix, Integer limit) {
+        String text = prefix == null ? "" : prefix.trim();
+        if (text.isEmpty() || text.length() > searchProperties.getMaxQueryLength()) {
+            throw new RequestValidationException("Typeahead prefix must have between [1] and [%s] characters".formatted(
+                    searchProperties.getMaxQueryLength()));
+        }
+        int size = limit == null ? typeaheadProperties.getDefaultLimit() : limit;
+        if (size < 1 || size > typeaheadProperties.getMaxLimit()) {
+            throw new RequestValidationException("Typeahead limit must be between 1 and [%s]".formatted(typeaheadProperties.getMaxLimit()));
+        }
+
+        if (customerPrefixIndex.isReady()) {
+            return customerPrefixIndex.suggest(text, size);
+        }
+        //index still loading or over its size limit, too short prefixes are not worth a database search
+        if (text.length() < searchProperties.getMinQueryLength()) {
+            return List.of();
+        }
+        return searchCustomers(text, null, size).customers()
+                .stream()
+                .map(customer -> new CustomerSuggestion(customer.id(), customer.name(), customer.email()))
+                .toList();
+    }
+
+    //returns the stored username, the canonical email that tokens must be issued for
+    public String addCustomer(CustomerRegistrationRequest customerRegistrationRequest) {
         //check if email exist
         if (customerDao.existPersonWithEmail(customerRegistrationRequest.email())) {
             throw new DuplicateResourceException("Customer with email [%s] already exists".formatted(customerRegistrationRequest.email()));
         }
         //add
-        customerDao.insertCustomer(
-                new Customer(
-                        customerRegistrationRequest.name(),
-                        customerRegistrationRequest.email(),
-                        passwordEncoder.encode(customerRegistrationRequest.password()),
-                        customerRegistrationRequest.age(),
-                        customerRegistrationRequest.gender()));
+        Customer customer = new Customer(
+                customerRegistrationRequest.name(),
+                customerRegistrationRequest.email(),
+                passwordEncoder.encode(customerRegistrationRequest.password()),
+                customerRegistrationRequest.age(),
+                customerRegistrationRequest.gender());
+        customerDao.insertCustomer(customer);
+        customerPrefixIndex.put(CustomerSuggestion.of(customer));
+        customerStats.added(customer.getGender(), customer.getAge());
+        return customer.getUsername();
     }
 
     public void deleteCustomerById(Integer customerId) {
-        checkIfCustomerExistsOrThrow(customerId);
+        //gender and age of the customer are needed to update the stats
+        CustomerDTO customer = customerDao.selectCustomerDTOById(customerId)
+                .orElseThrow(
+                        () -> new ResourceNotFoundException("Customer with id [%s] not found".formatted(customerId))
+                );
         //delete
         customerDao.deleteCustomerById(customerId);
+        customerPrefixIndex.remove(customerId);
+        customerStats.removed(customer.gender(), customer.age());
     }
 
     private void checkIfCustomerExistsOrThrow(Integer customerId) {
@@ -76,45 +230,75 @@ public class CustomerService {
         }
     }
 
-    public void updateCustomer(Integer customerId, CustomerUpdateRequest updateRequest) {
+    public String updateCustomer(Integer customerId, CustomerUpdateRequest updateRequest) {
+        return updateCustomer(customerId, updateRequest, null);
+    }
+
+    //returns the ETag of the updated customer, ifMatch is the optional If-Match header of the request
+    public String updateCustomer(Integer customerId, CustomerUpdateRequest updateRequest, String ifMatch) {
         //get customer
         Customer customerToUpdate = customerDao.selectCustomerById(customerId)
                 .orElseThrow(
                         () -> new ResourceNotFoundException("Customer with id [%s] not found".formatted(customerId))
                 );
 
+        //the update below only applies to the version read here
+        if (ifMatch != null && !eTagMatches(ifMatch, customerETag(customerId, customerToUpdate.getVersion()))) {
+            throw new PreconditionFailedException("Customer with id [%s] was modified, reload it and retry".formatted(customerId));
+        }
+
+        Gender oldGender = customerToUpdate.getGender();
+        Integer oldAge = customerToUpdate.getAge();
+        //only the changed fields are written, the password and untouched columns stay as they are
+        Customer update = new Customer();
+        update.setId(customerId);
+        update.setVersion(customerToUpdate.getVersion());
         boolean changes = false;
 
         //check field name
         if (!customerToUpdate.getName().equals(updateRequest.name()) && updateRequest.name() != null) {
             customerToUpdate.setName(updateRequest.name());
+            update.setName(updateRequest.name());
             changes = true;
         }
 
-        //check field email
-        if (!customerToUpdate.getEmail().equals(updateRequest.email()) && updateRequest.email() != null) {
+        //check field email, a case-only difference is no change
+        if (!customerToUpdate.getEmail().equals(Customer.canonicalEmail(updateRequest.email())) && updateRequest.email() != null) {
             if (customerDao.existPersonWithEmail(updateRequest.email())) {
                 throw new DuplicateResourceException("Customer with email [%s] already exists".formatted(updateRequest.email()));
             }
             customerToUpdate.setEmail(updateRequest.email());
+            update.setEmail(updateRequest.email());
             changes = true;
         }
 
         //check field age
         if (!customerToUpdate.getAge().equals(updateRequest.age()) && updateRequest.age() != null) {
             customerToUpdate.setAge(updateRequest.age());
+            update.setAge(updateRequest.age());
             changes = true;
         }
 
         //check field gender
         if (!customerToUpdate.getGender().equals(updateRequest.gender()) && updateRequest.gender() != null) {
             customerToUpdate.setGender(updateRequest.gender());
+            update.setGender(updateRequest.gender());
             changes = true;
         }
 
         //update customer or throw exception
         if (changes) {
-            customerDao.updateCustomer(customerToUpdate);
+            try {
+                customerDao.updateCustomer(update);
+            } catch (OptimisticLockingFailureException e) {
+                if (ifMatch == null) {
+                    throw e;
+                }
+                throw new PreconditionFailedException("Customer with id [%s] was modified, reload it and retry".formatted(customerId));
+            }
+            customerPrefixIndex.put(CustomerSuggestion.of(customerToUpdate));
+            customerStats.changed(oldGender, oldAge, customerToUpdate.getGender(), customerToUpdate.getAge());
+            return customerETag(customerId, update.getVersion());
         } else {
             throw new RequestValidationException("No data changes found");
         }
@@ -144,11 +328,7 @@ public class CustomerService {
     }
 
     public byte[] getCustomerProfileImage(Integer customerId) {
-        CustomerDTO customer = customerDao.selectCustomerById(customerId)
-                .map(customerDTOMapper)
-                .orElseThrow(
-                        () -> new ResourceNotFoundException("Customer with id [%s] not found".formatted(customerId))
-                );
+        CustomerDTO customer = getCustomerById(customerId);
 
         //check if  profileImageId is empty or null
         if (StringUtils.isBlank(customer.profileImageId())) {
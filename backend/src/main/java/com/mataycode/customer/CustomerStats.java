@@ -0,0 +1,116 @@
+package com.mataycode.customer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Customer totals, gender split and age histogram kept in memory, so reading them costs a fixed number of counter
+ * sums however many customers there are. CustomerService records every change; anything it cannot see (other
+ * instances, writes bypassing the service) is corrected by periodic reconciliation against the database.
+ * Until the first reconciliation the counters only hold the changes of this instance, so they are not ready.
+ */
+@Component
+public class CustomerStats {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CustomerStats.class);
+
+    static final int AGE_BUCKET_WIDTH = 10;
+    //0-9 ... 90-99 and 100+
+    static final int AGE_BUCKETS = 11;
+
+    private final LongAdder total = new LongAdder();
+    private final Map<Gender, LongAdder> genders = new EnumMap<>(Gender.class);
+    private final LongAdder[] ageBuckets = new LongAdder[AGE_BUCKETS];
+    private volatile boolean ready;
+
+    public CustomerStats() {
+        for (Gender gender : Gender.values()) {
+            genders.put(gender, new LongAdder());
+        }
+        for (int bucket = 0; bucket < AGE_BUCKETS; bucket++) {
+            ageBuckets[bucket] = new LongAdder();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void added(Gender gender, Integer age) {
+        record(gender, age, 1);
+    }
+
+    public void removed(Gender gender, Integer age) {
+        record(gender, age, -1);
+    }
+
+    public void changed(Gender oldGender, Integer oldAge, Gender newGender, Integer newAge) {
+        if (oldGender != newGender || bucketOf(oldAge) != bucketOf(newAge)) {
+            removed(oldGender, oldAge);
+            added(newGender, newAge);
+        }
+    }
+
+    private void record(Gender gender, Integer age, int delta) {
+        total.add(delta);
+        genders.get(gender).add(delta);
+        ageBuckets[bucketOf(age)].add(delta);
+    }
+
+    /**
+     * Moves every counter to the database count. Changes recorded while the counts were queried may be
+     * counted twice or not at all - the drift is bounded by the writes of one reconcile query and fixed by the next.
+     */
+    public void reconcile(List<CustomerStatsRow> rows) {
+        long expectedTotal = 0;
+        Map<Gender, Long> expectedGenders = new EnumMap<>(Gender.class);
+        long[] expectedAgeBuckets = new long[AGE_BUCKETS];
+        for (CustomerStatsRow row : rows) {
+            expectedTotal += row.count();
+            expectedGenders.merge(row.gender(), row.count(), Long::sum);
+            expectedAgeBuckets[bucketOf(row.age())] += row.count();
+        }
+
+        long drift = adjust(total, expectedTotal);
+        for (Gender gender : Gender.values()) {
+            adjust(genders.get(gender), expectedGenders.getOrDefault(gender, 0L));
+        }
+        for (int bucket = 0; bucket < AGE_BUCKETS; bucket++) {
+            adjust(ageBuckets[bucket], expectedAgeBuckets[bucket]);
+        }
+        ready = true;
+        if (drift != 0) {
+            LOGGER.info("Customer stats reconciled, total was off by [{}]", drift);
+        }
+    }
+
+    private static long adjust(LongAdder counter, long expected) {
+        long drift = counter.sum() - expected;
+        counter.add(-drift);
+        return drift;
+    }
+
+    public CustomerStatsResponse snapshot() {
+        Map<Gender, Long> genderCounts = new EnumMap<>(Gender.class);
+        genders.forEach((gender, counter) -> genderCounts.put(gender, counter.sum()));
+        List<CustomerStatsResponse.AgeBucket> histogram = new ArrayList<>(AGE_BUCKETS);
+        for (int bucket = 0; bucket < AGE_BUCKETS; bucket++) {
+            int from = bucket * AGE_BUCKET_WIDTH;
+            Integer to = bucket == AGE_BUCKETS - 1 ? null : from + AGE_BUCKET_WIDTH - 1;
+            histogram.add(new CustomerStatsResponse.AgeBucket(from, to, ageBuckets[bucket].sum()));
+        }
+        return new CustomerStatsResponse(total.sum(), genderCounts, histogram);
+    }
+
+    static int bucketOf(Integer age) {
+        int years = age == null ? 0 : Math.max(age, 0);
+        return Math.min(years / AGE_BUCKET_WIDTH, AGE_BUCKETS - 1);
+    }
+}
@@ -0,0 +1,22 @@
+package com.mataycode.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "customer.stats")
+public class CustomerStatsProperties {
+
+    //correction against the database, picks up changes made by other instances
+    private Duration reconcileInterval = Duration.ofMinutes(5);
+
+    public Duration getReconcileInterval() {
+        return reconcileInterval;
+    }
+
+    public void setReconcileInterval(Duration reconcileInterval) {
+        this.reconcileInterval = reconcileInterval;
+    }
+}
@@ -0,0 +1,58 @@
+package com.mataycode.customer;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//seeds CustomerStats from the database after startup and reconciles it on a fixed delay
+@Component
+public class CustomerStatsReconciler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CustomerStatsReconciler.class);
+
+    private final CustomerStats customerStats;
+    private final CustomerDao customerDao;
+    private final CustomerStatsProperties properties;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "customer-stats-reconcile");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CustomerStatsReconciler(CustomerStats customerStats,
+                                   @Qualifier("jdbc") CustomerDao customerDao,
+                                   CustomerStatsProperties properties) {
+        this.customerStats = customerStats;
+        this.customerDao = customerDao;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleReconcile() {
+        long intervalMillis = properties.getReconcileInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::reconcile, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean reconcile() {
+        try {
+            customerStats.reconcile(customerDao.selectCustomerStats());
+            return true;
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to reconcile customer stats, keeping incremental counts", e);
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,15 @@
+package com.mataycode.customer;
+
+import java.util.List;
+import java.util.Map;
+
+public record CustomerStatsResponse(
+        long total,
+        Map<Gender, Long> genders,
+        List<AgeBucket> ageHistogram
+) {
+
+    //to is inclusive, null for the open last bucket
+    public record AgeBucket(int from, Integer to, long count) {
+    }
+}
@@ -0,0 +1,5 @@
+package com.mataycode.customer;
+
+//customers per gender and age, what the stats aggregate is reconciled from
+public record CustomerStatsRow(Gender gender, int age, long count) {
+}
@@ -0,0 +1,9 @@
+package com.mataycode.customer;
+
+//typeahead entry, just enough to show and pick a customer
+public record CustomerSuggestion(Integer id, String name, String email) {
+
+    static CustomerSuggestion of(Customer customer) {
+        return new CustomerSuggestion(customer.getId(), customer.getName(), customer.getEmail());
+    }
+}
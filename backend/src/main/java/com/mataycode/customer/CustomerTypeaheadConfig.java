@@ -0,0 +1,40 @@
+package com.mataycode.customer;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+@Configuration
+public class CustomerTypeaheadConfig {
+
+    //loads, reloads and compacts the index, one rebuild at a time - not a bean, it would replace the application task executor
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "customer-typeahead-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Bean
+    public CustomerPrefixIndex customerPrefixIndex(CustomerTypeaheadProperties properties) {
+        int maxCustomers = properties.getMaxCustomers() > 0
+                ? properties.getMaxCustomers()
+                : CustomerPrefixIndex.maxCustomersFor(Runtime.getRuntime().maxMemory(), properties.getHeapShare());
+        return new CustomerPrefixIndex(maxCustomers, properties.getCompactThreshold(), executor);
+    }
+
+    @Bean
+    public CustomerPrefixIndexLoader customerPrefixIndexLoader(CustomerPrefixIndex customerPrefixIndex,
+                                                               @Qualifier("jdbc") CustomerDao customerDao,
+                                                               CustomerTypeaheadProperties properties) {
+        return new CustomerPrefixIndexLoader(customerPrefixIndex, customerDao, properties, executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
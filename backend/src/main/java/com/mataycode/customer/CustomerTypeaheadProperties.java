@@ -0,0 +1,70 @@
+package com.mataycode.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "customer.typeahead")
+public class CustomerTypeaheadProperties {
+
+    //share of the max heap the index may take while it is rebuilt, above it typeahead falls back to the database search
+    private double heapShare = 0.25;
+    //0 - derived from heapShare, see CustomerPrefixIndex.maxCustomersFor
+    private int maxCustomers;
+    //changes kept next to the snapshot before they are merged into a new one
+    private int compactThreshold = 1024;
+    //full reload from the database, picks up changes made by other instances
+    private Duration reloadInterval = Duration.ofMinutes(30);
+    private int defaultLimit = 10;
+    private int maxLimit = 20;
+
+    public double getHeapShare() {
+        return heapShare;
+    }
+
+    public void setHeapShare(double heapShare) {
+        this.heapShare = heapShare;
+    }
+
+    public int getMaxCustomers() {
+        return maxCustomers;
+    }
+
+    public void setMaxCustomers(int maxCustomers) {
+        this.maxCustomers = maxCustomers;
+    }
+
+    public int getCompactThreshold() {
+        return compactThreshold;
+    }
+
+    public void setCompactThreshold(int compactThreshold) {
+        this.compactThreshold = compactThreshold;
+    }
+
+    public Duration getReloadInterval() {
+        return reloadInterval;
+    }
+
+    public void setReloadInterval(Duration reloadInterval) {
+        this.reloadInterval = reloadInterval;
+    }
+
+    public int getDefaultLimit() {
+        return defaultLimit;
+    }
+
+    public void setDefaultLimit(int defaultLimit) {
+        this.defaultLimit = defaultLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+}
@@ -1,11 +1,15 @@
 package com.mataycode.customer;
 
+import com.mataycode.jfr.UserLookupEvent;
+import com.mataycode.web.ServerTiming;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+
 @Service
 public class CustomerUserDetailsService implements UserDetailsService {
 
@@ -17,6 +21,20 @@ public class CustomerUserDetailsService implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return customerDao.selectUserByEmail(username).orElseThrow(() -> new UsernameNotFoundException("Username " + username + " not found"));
+        UserLookupEvent event = new UserLookupEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long dbNanos = ServerTiming.recordedNanos(ServerTiming.DB);
+        Optional<Customer> customer = Optional.empty();
+        try {
+            customer = customerDao.selectUserByEmail(username);
+        } finally {
+            //the dao call is already in the db metric, user is the lookup without it
+            long lookupDbNanos = ServerTiming.recordedNanos(ServerTiming.DB) - dbNanos;
+            ServerTiming.record(ServerTiming.USER, Math.max(0, System.nanoTime() - start - lookupDbNanos));
+            event.setFound(customer.isPresent());
+            event.commit();
+        }
+        return customer.orElseThrow(() -> new UsernameNotFoundException("Username " + username + " not found"));
     }
 }
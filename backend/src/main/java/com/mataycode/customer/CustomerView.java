@@ -0,0 +1,15 @@
+package com.mataycode.customer;
+
+//JPA read projection of Customer without the password hash
+public record CustomerView(
+        Integer id,
+        String name,
+        String email,
+        Gender gender,
+        Integer age,
+        String profileImageId) {
+
+    public CustomerDTO toDTO() {
+        return CustomerDTOMapper.toDTO(id, name, email, gender, age, profileImageId);
+    }
+}
@@ -0,0 +1,10 @@
+package com.mataycode.customer;
+
+//customer with the version of the same row, the ETag of a single customer is taken from it
+public record VersionedCustomerDTO(CustomerDTO customer, long version) {
+
+    //JPQL constructor expression
+    public VersionedCustomerDTO(Integer id, String name, String email, Gender gender, Integer age, String profileImageId, Long version) {
+        this(CustomerDTOMapper.toDTO(id, name, email, gender, age, profileImageId), version);
+    }
+}
@@ -0,0 +1,30 @@
+package com.mataycode.datasource;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class DataSourceProxyConfig {
+
+    //static - post processors are created before regular beans, listener is looked up only when DataSource is wrapped
+    @Bean
+    public static BeanPostProcessor dataSourceProxyBeanPostProcessor(ObjectProvider<SqlStatementListener> sqlStatementListener) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(beanName, dataSource)
+                            .listener(sqlStatementListener.getObject())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
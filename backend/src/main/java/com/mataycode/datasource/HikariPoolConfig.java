@@ -0,0 +1,41 @@
+package com.mataycode.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class HikariPoolConfig {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HikariPoolConfig.class);
+
+    //HikariCP pool sizing rule of thumb: cores * 2 + effective spindle count (1 for SSD / network storage)
+    static int defaultPoolSize(int cores) {
+        return cores * 2 + 1;
+    }
+
+    //runs after spring.datasource.hikari.* is bound, an explicit maximum-pool-size (> 0) always wins
+    @Bean
+    public static BeanPostProcessor hikariPoolSizingBeanPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    applyDefaultPoolSize(hikari, beanName);
+                }
+                return bean;
+            }
+        };
+    }
+
+    static void applyDefaultPoolSize(HikariDataSource hikari, String name) {
+        if (hikari.getMaximumPoolSize() < 1) {
+            int poolSize = defaultPoolSize(Runtime.getRuntime().availableProcessors());
+            hikari.setMaximumPoolSize(poolSize);
+            LOGGER.info("Sized connection pool [{}] to {} connections from core count", name, poolSize);
+        }
+    }
+}
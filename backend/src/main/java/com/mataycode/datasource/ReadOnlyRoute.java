@@ -0,0 +1,18 @@
+package com.mataycode.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read that may be served by a replica without starting a transaction.
+ * Only has an effect while datasource.routing is enabled (see ReadOnlyRouteAspect),
+ * inside a read-write transaction the connection stays on the primary.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadOnlyRoute {
+}
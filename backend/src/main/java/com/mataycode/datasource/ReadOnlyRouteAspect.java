@@ -0,0 +1,33 @@
+package com.mataycode.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Binds the @ReadOnlyRoute marker to the thread for ReadWriteRoutingDataSource.
+ * Registered by ReadWriteRoutingConfig only, with routing off the marked reads run unadvised.
+ */
+@Aspect
+public class ReadOnlyRouteAspect {
+
+    private static final ThreadLocal<Boolean> READ_ONLY_ROUTE = new ThreadLocal<>();
+
+    @Around("@annotation(com.mataycode.datasource.ReadOnlyRoute)")
+    public Object routeReadOnly(ProceedingJoinPoint joinPoint) throws Throwable {
+        Boolean previous = READ_ONLY_ROUTE.get();
+        READ_ONLY_ROUTE.set(Boolean.TRUE);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            //nested marked reads must not clear the flag of the outer one
+            if (previous == null) {
+                READ_ONLY_ROUTE.remove();
+            }
+        }
+    }
+
+    static boolean isReadOnlyRoute() {
+        return READ_ONLY_ROUTE.get() != null;
+    }
+}
@@ -0,0 +1,82 @@
+package com.mataycode.datasource;
+
+import com.mataycode.credentials.CachingCredentialsProvider;
+import com.mataycode.credentials.DatabaseCredentialsConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured DataSource with primary + replica pools routed by ReadWriteRoutingDataSource.
+ * Read-only transactions and @ReadOnlyRoute reads of the CustomerDao implementations go to the replicas,
+ * everything else to the primary.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.routing", name = "enabled", havingValue = "true")
+public class ReadWriteRoutingConfig {
+
+    @Bean
+    public ReplicaStickiness replicaStickiness(ReadWriteRoutingProperties properties) {
+        return new ReplicaStickiness(properties.getStickyWindow());
+    }
+
+    @Bean
+    public ReadOnlyRouteAspect readOnlyRouteAspect() {
+        return new ReadOnlyRouteAspect();
+    }
+
+    @Bean
+    public ReadWriteRoutingPools readWriteRoutingPools(DataSourceProperties dataSourceProperties,
+                                                       ReadWriteRoutingProperties routingProperties,
+                                                       Environment environment,
+                                                       ObjectProvider<CachingCredentialsProvider> credentialsProvider,
+                                                       ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource primary = pool(dataSourceProperties, dataSourceProperties.determineUrl(), "primary",
+                environment, credentialsProvider, meterRegistry);
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < routingProperties.getReplicaUrls().size(); i++) {
+            replicas.add(pool(dataSourceProperties, routingProperties.getReplicaUrls().get(i), "replica-" + i,
+                    environment, credentialsProvider, meterRegistry));
+        }
+        return new ReadWriteRoutingPools(primary, replicas);
+    }
+
+    @Bean
+    public DataSource dataSource(ReadWriteRoutingPools pools, ReplicaStickiness replicaStickiness) {
+        return new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(pools.primary(), pools.replicas(), replicaStickiness)
+        );
+    }
+
+    //pools are not beans, so sizing, credentials and metrics post-processing is applied here
+    private static HikariDataSource pool(DataSourceProperties dataSourceProperties,
+                                         String url,
+                                         String role,
+                                         Environment environment,
+                                         ObjectProvider<CachingCredentialsProvider> credentialsProvider,
+                                         ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource pool = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName((pool.getPoolName() != null ? pool.getPoolName() : "pool") + "-" + role);
+        HikariPoolConfig.applyDefaultPoolSize(pool, pool.getPoolName());
+        credentialsProvider.ifAvailable(provider -> DatabaseCredentialsConfig.applyCredentials(provider, pool));
+        meterRegistry.ifAvailable(registry -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        return pool;
+    }
+}
@@ -0,0 +1,63 @@
+package com.mataycode.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections of read-only transactions and of @ReadOnlyRoute reads outside of a transaction
+ * to the replicas (round robin), everything else to the primary.
+ * Only read-write transactions make the user sticky, connections outside of a transaction may just read.
+ * Must sit behind a LazyConnectionDataSourceProxy - the transaction manager fetches the connection
+ * before the read-only flag is bound to the thread.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final List<String> replicaKeys = new ArrayList<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ReplicaStickiness stickiness;
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<? extends DataSource> replicas, ReplicaStickiness stickiness) {
+        this.stickiness = stickiness;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            String key = "replica-" + i;
+            replicaKeys.add(key);
+            targets.put(key, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        initialize();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (isReadOnly()) {
+            if (replicaKeys.isEmpty() || stickiness.isSticky()) {
+                return PRIMARY;
+            }
+            return replicaKeys.get(Math.floorMod(nextReplica.getAndIncrement(), replicaKeys.size()));
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            stickiness.recordWrite();
+        }
+        return PRIMARY;
+    }
+
+    private static boolean isReadOnly() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return true;
+        }
+        return !TransactionSynchronizationManager.isActualTransactionActive() && ReadOnlyRouteAspect.isReadOnlyRoute();
+    }
+}
@@ -0,0 +1,15 @@
+package com.mataycode.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.util.List;
+
+//connection pools behind ReadWriteRoutingDataSource, closed on shutdown
+public record ReadWriteRoutingPools(HikariDataSource primary, List<HikariDataSource> replicas) implements AutoCloseable {
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+}
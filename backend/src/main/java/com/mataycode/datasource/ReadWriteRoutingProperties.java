@@ -0,0 +1,43 @@
+package com.mataycode.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "datasource.routing")
+public class ReadWriteRoutingProperties {
+
+    private boolean enabled = false;
+    //replicas share credentials and spring.datasource.hikari.* settings with the primary
+    private List<String> replicaUrls = new ArrayList<>();
+    //after a write, reads of the same user stay on the primary this long - keep above replica lag
+    private Duration stickyWindow = Duration.ofSeconds(5);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getReplicaUrls() {
+        return replicaUrls;
+    }
+
+    public void setReplicaUrls(List<String> replicaUrls) {
+        this.replicaUrls = replicaUrls;
+    }
+
+    public Duration getStickyWindow() {
+        return stickyWindow;
+    }
+
+    public void setStickyWindow(Duration stickyWindow) {
+        this.stickyWindow = stickyWindow;
+    }
+}
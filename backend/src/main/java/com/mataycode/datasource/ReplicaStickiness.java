@@ -0,0 +1,56 @@
+package com.mataycode.datasource;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-your-writes for replica routing: once a user writes, their reads go to the primary
+ * for the sticky window. The user is the authenticated principal of the current thread - the remote address
+ * would be the load balancer for everyone. Anonymous requests (signup, login, the JWT user lookup itself)
+ * are never sticky. State is per instance, so across instances it relies on the load balancer keeping a client on one instance.
+ */
+public class ReplicaStickiness {
+
+    private static final int PURGE_THRESHOLD = 10_000;
+
+    private final long windowNanos;
+    private final Map<String, Long> stickyUntil = new ConcurrentHashMap<>();
+
+    public ReplicaStickiness(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    boolean isSticky() {
+        String client = currentClient();
+        if (client == null) {
+            return false;
+        }
+        Long until = stickyUntil.get(client);
+        return until != null && System.nanoTime() - until < 0;
+    }
+
+    void recordWrite() {
+        String client = currentClient();
+        if (client == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (stickyUntil.size() > PURGE_THRESHOLD) {
+            stickyUntil.values().removeIf(until -> now - until >= 0);
+        }
+        stickyUntil.put(client, now + windowNanos);
+    }
+
+    private static String currentClient() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
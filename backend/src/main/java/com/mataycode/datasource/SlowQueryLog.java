@@ -0,0 +1,48 @@
+package com.mataycode.datasource;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Bounded ring buffer of the most recent slow statements, oldest entries are dropped first.
+ */
+@Component
+public class SlowQueryLog {
+
+    public record SlowQuery(
+            Instant timestamp,
+            long elapsedMillis,
+            String sql,
+            int batchSize,
+            String request,
+            boolean success
+    ) {
+    }
+
+    private final int capacity;
+    private final Deque<SlowQuery> entries;
+
+    public SlowQueryLog(SqlMonitoringProperties properties) {
+        this.capacity = properties.getSlowQueryLogSize();
+        this.entries = new ArrayDeque<>(capacity);
+    }
+
+    public synchronized void add(SlowQuery slowQuery) {
+        if (entries.size() == capacity) {
+            entries.removeFirst();
+        }
+        entries.addLast(slowQuery);
+    }
+
+    //newest first
+    public synchronized List<SlowQuery> getEntries() {
+        List<SlowQuery> result = new ArrayList<>(entries.size());
+        entries.descendingIterator().forEachRemaining(result::add);
+        return result;
+    }
+}
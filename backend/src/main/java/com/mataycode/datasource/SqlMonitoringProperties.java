@@ -0,0 +1,41 @@
+package com.mataycode.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "sql.monitoring")
+public class SqlMonitoringProperties {
+
+    //statements slower than this are logged and kept in the slow query log
+    private Duration slowQueryThreshold = Duration.ofMillis(200);
+    //requests executing more statements than this are reported as possible N+1
+    private int statementsPerRequestThreshold = 10;
+    private int slowQueryLogSize = 100;
+
+    public Duration getSlowQueryThreshold() {
+        return slowQueryThreshold;
+    }
+
+    public void setSlowQueryThreshold(Duration slowQueryThreshold) {
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    public int getStatementsPerRequestThreshold() {
+        return statementsPerRequestThreshold;
+    }
+
+    public void setStatementsPerRequestThreshold(int statementsPerRequestThreshold) {
+        this.statementsPerRequestThreshold = statementsPerRequestThreshold;
+    }
+
+    public int getSlowQueryLogSize() {
+        return slowQueryLogSize;
+    }
+
+    public void setSlowQueryLogSize(int slowQueryLogSize) {
+        this.slowQueryLogSize = slowQueryLogSize;
+    }
+}
@@ -0,0 +1,54 @@
+package com.mataycode.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Statements executed by the current HTTP request thread.
+ * Filled by SqlStatementListener, opened and closed by SqlRequestStatisticsFilter.
+ */
+public final class SqlRequestContext {
+
+    private static final ThreadLocal<SqlRequestContext> CURRENT = new ThreadLocal<>();
+
+    private final String method;
+    //resolved when read, the route template is only known once the handler is mapped
+    private final Supplier<String> route;
+    private int statements;
+    private long nanos;
+
+    private SqlRequestContext(String method, Supplier<String> route) {
+        this.method = method;
+        this.route = route;
+    }
+
+    static SqlRequestContext begin(String method, Supplier<String> route) {
+        SqlRequestContext context = new SqlRequestContext(method, route);
+        CURRENT.set(context);
+        return context;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static SqlRequestContext current() {
+        return CURRENT.get();
+    }
+
+    void record(long statementNanos) {
+        statements++;
+        nanos += statementNanos;
+    }
+
+    public String getRequest() {
+        return method + " " + route.get();
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+}
@@ -0,0 +1,71 @@
+package com.mataycode.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import reactor.util.annotation.NonNull;
+
+import java.io.IOException;
+
+/**
+ * Counts statements per HTTP request, so requests issuing many small queries (N+1) are reported.
+ * Ordered before Spring Security to include the user lookup of JwtAuthenticationFilter.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class SqlRequestStatisticsFilter extends OncePerRequestFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SqlRequestStatisticsFilter.class);
+    //statements before handler mapping (JWT user lookup) or of requests without a handler
+    public static final String UNMAPPED_ROUTE = "[unmapped]";
+
+    private final int statementsPerRequestThreshold;
+    private final DistributionSummary statementsPerRequest;
+    private final Counter nPlusOneRequests;
+
+    public SqlRequestStatisticsFilter(MeterRegistry meterRegistry, SqlMonitoringProperties properties) {
+        this.statementsPerRequestThreshold = properties.getStatementsPerRequestThreshold();
+        this.statementsPerRequest = DistributionSummary.builder("sql.statements.per.request")
+                .description("JDBC statements executed by one HTTP request")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.nPlusOneRequests = Counter.builder("sql.n.plus.one.requests")
+                .description("Requests over sql.monitoring.statements-per-request-threshold")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        SqlRequestContext context = SqlRequestContext.begin(request.getMethod(), () -> route(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlRequestContext.end();
+            statementsPerRequest.record(context.getStatements());
+            if (context.getStatements() > statementsPerRequestThreshold) {
+                nPlusOneRequests.increment();
+                LOGGER.warn("Possible N+1: {} SQL statements ({} ms) for [{}]",
+                        context.getStatements(), context.getNanos() / 1_000_000, context.getRequest());
+            }
+        }
+    }
+
+    //route template like /api/v1/customers/email/{customerEmail}, the raw URI would put path variables into the slow query log
+    public static String route(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : UNMAPPED_ROUTE;
+    }
+}
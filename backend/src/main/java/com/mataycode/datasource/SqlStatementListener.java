@@ -0,0 +1,126 @@
+package com.mataycode.datasource;
+
+import com.mataycode.jfr.SqlStatementEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Times every statement going through the proxied DataSource and flags slow ones.
+ * Only the SQL text is kept - bind parameters are never read and inline literals are redacted.
+ * While a JFR recording is running, each statement is also emitted as a SqlStatementEvent.
+ */
+@Component
+public class SqlStatementListener implements QueryExecutionListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SqlStatementListener.class);
+    private static final String START_NANOS = "startNanos";
+    private static final String JFR_EVENT = "jfrEvent";
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("(?<![\\w$.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+
+    private final MeterRegistry meterRegistry;
+    private final SlowQueryLog slowQueryLog;
+    private final long slowQueryThresholdNanos;
+    private final Counter slowStatements;
+
+    public SqlStatementListener(MeterRegistry meterRegistry, SlowQueryLog slowQueryLog, SqlMonitoringProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.slowQueryLog = slowQueryLog;
+        this.slowQueryThresholdNanos = properties.getSlowQueryThreshold().toNanos();
+        this.slowStatements = Counter.builder("sql.slow.statements")
+                .description("Statements slower than sql.monitoring.slow-query-threshold")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+        SqlStatementEvent event = new SqlStatementEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            execInfo.addCustomValue(JFR_EVENT, event);
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long startNanos = execInfo.getCustomValue(START_NANOS, Long.class);
+        long elapsedNanos = startNanos != null
+                ? System.nanoTime() - startNanos
+                : TimeUnit.MILLISECONDS.toNanos(execInfo.getElapsedTime());
+        String sql = queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+        commitEvent(execInfo, sql);
+
+        Timer.builder("sql.statements")
+                .description("JDBC statement execution time")
+                .tag("type", statementType(sql))
+                .tag("outcome", execInfo.isSuccess() ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        SqlRequestContext context = SqlRequestContext.current();
+        if (context != null) {
+            context.record(elapsedNanos);
+        }
+
+        if (elapsedNanos >= slowQueryThresholdNanos) {
+            String redacted = redact(sql);
+            String request = context != null ? context.getRequest() : null;
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            slowStatements.increment();
+            slowQueryLog.add(new SlowQueryLog.SlowQuery(
+                    Instant.now(), elapsedMillis, redacted, execInfo.getBatchSize(), request, execInfo.isSuccess()));
+            LOGGER.warn("Slow SQL ({} ms) during [{}]: {}", elapsedMillis, request, redacted);
+        }
+    }
+
+    private static void commitEvent(ExecutionInfo execInfo, String sql) {
+        SqlStatementEvent event = execInfo.getCustomValue(JFR_EVENT, SqlStatementEvent.class);
+        if (event == null) {
+            return;
+        }
+        event.end();
+        //redacting costs a regex pass, skip it for statements under the recording threshold
+        if (event.shouldCommit()) {
+            event.setSql(redact(sql));
+            event.setBatchSize(execInfo.getBatchSize());
+            event.setSuccess(execInfo.isSuccess());
+            event.commit();
+        }
+    }
+
+    static String redact(String sql) {
+        String withoutStrings = STRING_LITERAL.matcher(sql).replaceAll("?");
+        return NUMERIC_LITERAL.matcher(withoutStrings).replaceAll("?")
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+
+    private static String statementType(String sql) {
+        String trimmed = sql.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        String keyword = trimmed.substring(0, end).toLowerCase(Locale.ROOT);
+        return switch (keyword) {
+            case "select", "insert", "update", "delete", "with" -> keyword;
+            default -> "other";
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package com.mataycode.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.mataycode.CustomerDao")
+@Label("Customer DAO Call")
+@Category({"Mataycode", "Database"})
+@Description("CustomerDao method call")
+@StackTrace(false)
+public class CustomerDaoEvent extends Event {
+
+    @Label("Implementation")
+    private String implementation;
+    @Label("Method")
+    private String method;
+    @Label("Success")
+    private boolean success;
+
+    public void setImplementation(String implementation) {
+        this.implementation = implementation;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+}
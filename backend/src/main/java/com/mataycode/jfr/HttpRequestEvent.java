@@ -0,0 +1,36 @@
+package com.mataycode.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.mataycode.HttpRequest")
+@Label("HTTP Request")
+@Category({"Mataycode", "HTTP"})
+@Description("Servlet request handled by the API")
+@StackTrace(false)
+public class HttpRequestEvent extends Event {
+
+    @Label("Method")
+    private String method;
+    @Label("Route")
+    @Description("Route template of the handler, not the raw path")
+    private String route;
+    @Label("Status")
+    private int status;
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public void setRoute(String route) {
+        this.route = route;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,73 @@
+package com.mataycode.jfr;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+
+@Component
+@ConfigurationProperties(prefix = "jfr")
+public class JfrProperties {
+
+    //keep an always-on recording from startup, dumped on demand via /actuator/jfr/{id}
+    private boolean continuous = false;
+    //jfc settings used when a recording does not name one - "default" (~1% overhead) or "profile"
+    private String settings = "default";
+    //how much history the continuous recording keeps
+    private Duration maxAge = Duration.ofMinutes(30);
+    //jfc settings an on-demand recording may ask for
+    private Set<String> allowedSettings = Set.of("default", "profile");
+    //on-demand recordings stop after this at the latest, also the duration when none is given
+    private Duration maxDuration = Duration.ofMinutes(5);
+    //on-demand recordings running at the same time
+    private int maxOnDemandRecordings = 1;
+
+    public boolean isContinuous() {
+        return continuous;
+    }
+
+    public void setContinuous(boolean continuous) {
+        this.continuous = continuous;
+    }
+
+    public String getSettings() {
+        return settings;
+    }
+
+    public void setSettings(String settings) {
+        this.settings = settings;
+    }
+
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(Duration maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public Set<String> getAllowedSettings() {
+        return allowedSettings;
+    }
+
+    public void setAllowedSettings(Set<String> allowedSettings) {
+        this.allowedSettings = allowedSettings;
+    }
+
+    public Duration getMaxDuration() {
+        return maxDuration;
+    }
+
+    public void setMaxDuration(Duration maxDuration) {
+        this.maxDuration = maxDuration;
+    }
+
+    public int getMaxOnDemandRecordings() {
+        return maxOnDemandRecordings;
+    }
+
+    public void setMaxOnDemandRecordings(int maxOnDemandRecordings) {
+        this.maxOnDemandRecordings = maxOnDemandRecordings;
+    }
+}
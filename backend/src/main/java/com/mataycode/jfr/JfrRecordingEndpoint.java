@@ -0,0 +1,149 @@
+package com.mataycode.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Starts, lists, downloads and stops JFR recordings at runtime.
+ * POST /actuator/jfr {"durationSeconds": 60, "settings": "profile"} starts one,
+ * GET /actuator/jfr/{id} downloads it as a .jfr file (open with JDK Mission Control or `jfr print`).
+ * Served on the management port only, settings, duration and concurrent on-demand recordings are limited by JfrProperties.
+ */
+@Component
+@Endpoint(id = "jfr")
+public class JfrRecordingEndpoint {
+
+    private static final String ON_DEMAND = "on-demand";
+    //environment and system properties would put secrets into every downloadable dump
+    private static final List<String> DISABLED_EVENTS = List.of(
+            "jdk.InitialEnvironmentVariable",
+            "jdk.InitialSystemProperty"
+    );
+
+    private final JfrProperties properties;
+
+    public JfrRecordingEndpoint(JfrProperties properties) {
+        this.properties = properties;
+        if (properties.isContinuous()) {
+            Recording recording = newRecording("continuous", properties.getSettings());
+            recording.setMaxAge(properties.getMaxAge());
+            recording.start();
+        }
+    }
+
+    public record RecordingInfo(long id, String name, RecordingState state, Instant startTime, Duration duration) {
+        static RecordingInfo of(Recording recording) {
+            return new RecordingInfo(
+                    recording.getId(), recording.getName(), recording.getState(),
+                    recording.getStartTime(), recording.getDuration());
+        }
+    }
+
+    @ReadOperation
+    public List<RecordingInfo> recordings() {
+        return FlightRecorder.getFlightRecorder().getRecordings().stream()
+                .map(RecordingInfo::of)
+                .toList();
+    }
+
+    @WriteOperation
+    public synchronized RecordingInfo startRecording(@Nullable Long durationSeconds, @Nullable String settings) {
+        String name = settings != null ? settings : properties.getSettings();
+        if (!properties.getAllowedSettings().contains(name)) {
+            throw new InvalidEndpointRequestException(
+                    "JFR settings [%s] not allowed, use one of %s".formatted(name, properties.getAllowedSettings()),
+                    "JFR settings not allowed");
+        }
+        Duration duration = durationSeconds != null ? Duration.ofSeconds(durationSeconds) : properties.getMaxDuration();
+        if (duration.isNegative() || duration.isZero() || duration.compareTo(properties.getMaxDuration()) > 0) {
+            throw new InvalidEndpointRequestException(
+                    "JFR recording duration must be between 1 and [%s] seconds".formatted(properties.getMaxDuration().toSeconds()),
+                    "JFR recording duration out of range");
+        }
+        if (runningOnDemandRecordings() >= properties.getMaxOnDemandRecordings()) {
+            throw new InvalidEndpointRequestException(
+                    "At most [%s] on-demand JFR recordings can run at once".formatted(properties.getMaxOnDemandRecordings()),
+                    "Too many JFR recordings");
+        }
+
+        Recording recording = newRecording(ON_DEMAND, name);
+        recording.setDuration(duration);
+        recording.start();
+        return RecordingInfo.of(recording);
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public byte[] dumpRecording(@Selector long id) {
+        Recording recording = findRecording(id);
+        if (recording == null) {
+            return null;
+        }
+        //dump snapshots a running recording up to now without stopping it
+        try {
+            Path file = Files.createTempFile("recording-" + id, ".jfr");
+            try {
+                recording.dump(file);
+                return Files.readAllBytes(file);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to dump JFR recording " + id, e);
+        }
+    }
+
+    @DeleteOperation
+    public void closeRecording(@Selector long id) {
+        Recording recording = findRecording(id);
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    private static Recording newRecording(String name, String settings) {
+        try {
+            Recording recording = new Recording(Configuration.getConfiguration(settings));
+            recording.setName(name);
+            recording.setToDisk(true);
+            DISABLED_EVENTS.forEach(recording::disable);
+            return recording;
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown JFR settings [%s]".formatted(settings), e);
+        }
+    }
+
+    private static long runningOnDemandRecordings() {
+        return FlightRecorder.getFlightRecorder().getRecordings().stream()
+                .filter(recording -> ON_DEMAND.equals(recording.getName()))
+                .filter(recording -> recording.getState() == RecordingState.NEW
+                        || recording.getState() == RecordingState.DELAYED
+                        || recording.getState() == RecordingState.RUNNING)
+                .count();
+    }
+
+    private static Recording findRecording(long id) {
+        return FlightRecorder.getFlightRecorder().getRecordings().stream()
+                .filter(recording -> recording.getId() == id)
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,44 @@
+package com.mataycode.jfr;
+
+import com.mataycode.datasource.SqlRequestStatisticsFilter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import reactor.util.annotation.NonNull;
+
+import java.io.IOException;
+
+/**
+ * Emits an HttpRequestEvent spanning the whole filter chain, so auth, DB and S3 events
+ * recorded on the same thread can be read as phases of one request.
+ * Like the slow query log it records the route template, raw paths would put emails and ids into exported recordings.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class JfrRequestFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        HttpRequestEvent event = new HttpRequestEvent();
+        if (!event.isEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        event.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            event.setMethod(request.getMethod());
+            event.setRoute(SqlRequestStatisticsFilter.route(request));
+            event.setStatus(response.getStatus());
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.mataycode.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.mataycode.JwtVerification")
+@Label("JWT Verification")
+@Category({"Mataycode", "Auth"})
+@Description("Parsing or validating the bearer token in JwtAuthenticationFilter")
+@StackTrace(false)
+public class JwtVerificationEvent extends Event {
+
+    @Label("Phase")
+    private String phase;
+    @Label("Success")
+    private boolean success;
+
+    public void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+}
@@ -0,0 +1,23 @@
+package com.mataycode.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.mataycode.Login")
+@Label("Login")
+@Category({"Mataycode", "Auth"})
+@Description("AuthenticationService.login, includes user lookup and password hash check")
+@StackTrace(false)
+public class LoginEvent extends Event {
+
+    @Label("Success")
+    private boolean success;
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+}
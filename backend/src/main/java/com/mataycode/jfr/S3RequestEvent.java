@@ -0,0 +1,49 @@
+package com.mataycode.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.mataycode.S3Request")
+@Label("S3 Request")
+@Category({"Mataycode", "S3"})
+@Description("S3Service put/get call")
+@StackTrace(false)
+public class S3RequestEvent extends Event {
+
+    @Label("Operation")
+    private String operation;
+    @Label("Bucket")
+    private String bucket;
+    @Label("Key")
+    private String key;
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+    @Label("Success")
+    private boolean success;
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public void setBucket(String bucket) {
+        this.bucket = bucket;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+}
@@ -0,0 +1,35 @@
+package com.mataycode.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.mataycode.SqlStatement")
+@Label("SQL Statement")
+@Category({"Mataycode", "Database"})
+@Description("JDBC statement executed through the proxied DataSource")
+@StackTrace(false)
+public class SqlStatementEvent extends Event {
+
+    @Label("SQL")
+    private String sql;
+    @Label("Batch Size")
+    private int batchSize;
+    @Label("Success")
+    private boolean success;
+
+    public void setSql(String sql) {
+        this.sql = sql;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+}
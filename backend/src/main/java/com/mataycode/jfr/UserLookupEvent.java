@@ -0,0 +1,23 @@
+package com.mataycode.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.mataycode.UserLookup")
+@Label("User Lookup")
+@Category({"Mataycode", "Auth"})
+@Description("UserDetailsService.loadUserByUsername")
+@StackTrace(false)
+public class UserLookupEvent extends Event {
+
+    @Label("Found")
+    private boolean found;
+
+    public void setFound(boolean found) {
+        this.found = found;
+    }
+}
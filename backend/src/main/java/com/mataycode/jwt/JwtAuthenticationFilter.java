@@ -1,6 +1,8 @@
 package com.mataycode.jwt;
 
 import com.mataycode.customer.CustomerUserDetailsService;
+import com.mataycode.jfr.JwtVerificationEvent;
+import com.mataycode.web.ServerTiming;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -41,12 +43,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String jwt = authHeader.substring(7);
 
-        String subject = jwtUtil.getSubject(jwt);
+        String subject = parseSubject(jwt);
 
         if(subject != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             UserDetails userDetails = userDetailsService.loadUserByUsername(subject);
 
-            if (jwtUtil.isTokenValid(jwt, userDetails.getUsername())) {
+            if (isTokenValid(jwt, userDetails.getUsername())) {
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
@@ -54,4 +56,37 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    private String parseSubject(String jwt) {
+        JwtVerificationEvent event = new JwtVerificationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            String subject = jwtUtil.getSubject(jwt);
+            success = true;
+            return subject;
+        } finally {
+            ServerTiming.record(ServerTiming.JWT, System.nanoTime() - start);
+            event.setPhase("parse");
+            event.setSuccess(success);
+            event.commit();
+        }
+    }
+
+    private boolean isTokenValid(String jwt, String username) {
+        JwtVerificationEvent event = new JwtVerificationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean valid = false;
+        try {
+            valid = jwtUtil.isTokenValid(jwt, username);
+            return valid;
+        } finally {
+            ServerTiming.record(ServerTiming.JWT, System.nanoTime() - start);
+            event.setPhase("validate");
+            event.setSuccess(valid);
+            event.commit();
+        }
+    }
 }
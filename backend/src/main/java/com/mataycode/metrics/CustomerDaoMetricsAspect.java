@@ -0,0 +1,68 @@
+package com.mataycode.metrics;
+
+import com.mataycode.jfr.CustomerDaoEvent;
+import com.mataycode.web.ServerTiming;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Times every CustomerDao call, tagged by implementation (the @Repository name - jdbc, jpa, ...),
+ * method and outcome. Percentile histograms are published so p99 can be aggregated across instances.
+ * Each call is also emitted as a CustomerDaoEvent for JFR recordings and added to the db Server-Timing metric.
+ */
+@Aspect
+@Component
+public class CustomerDaoMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    public CustomerDaoMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(* com.mataycode.customer.CustomerDao+.*(..))")
+    public Object timeDaoCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CustomerDaoEvent event = new CustomerDaoEvent();
+        event.begin();
+        String outcome = "success";
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = "error";
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            String implementation = implementationOf(joinPoint.getTarget());
+            String method = joinPoint.getSignature().getName();
+            event.setImplementation(implementation);
+            event.setMethod(method);
+            event.setSuccess(outcome.equals("success"));
+            event.commit();
+            long nanos = sample.stop(Timer.builder("customer.dao")
+                    .description("CustomerDao method execution time")
+                    .tag("implementation", implementation)
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .tag("exception", exception)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            ServerTiming.record(ServerTiming.DB, nanos);
+        }
+    }
+
+    private static String implementationOf(Object target) {
+        Repository repository = AnnotationUtils.findAnnotation(target.getClass(), Repository.class);
+        if (repository != null && !repository.value().isEmpty()) {
+            return repository.value();
+        }
+        return target.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,97 @@
+package com.mataycode.metrics;
+
+import com.mataycode.jfr.S3RequestEvent;
+import com.mataycode.web.ServerTiming;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.S3Client;
+
+/**
+ * Times S3Service put/get calls and records payload sizes, tagged by client (s3 or fake).
+ * Each call is also emitted as an S3RequestEvent for JFR recordings and added to the s3 Server-Timing metric.
+ */
+@Aspect
+@Component
+public class S3MetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final String client;
+
+    public S3MetricsAspect(MeterRegistry meterRegistry, S3Client s3Client) {
+        this.meterRegistry = meterRegistry;
+        this.client = s3Client.serviceName();
+    }
+
+    @Around("execution(public * com.mataycode.s3.S3Service.putObject(..)) && args(bucketName, key, file)")
+    public Object timePutObject(ProceedingJoinPoint joinPoint, String bucketName, String key, byte[] file) throws Throwable {
+        recordPayloadSize("put", file);
+        S3RequestEvent event = newEvent("put", bucketName, key);
+        event.setBytes(file != null ? file.length : 0);
+        return time(joinPoint, "put", event);
+    }
+
+    @Around("execution(public * com.mataycode.s3.S3Service.getObject(..)) && args(bucketName, key)")
+    public Object timeGetObject(ProceedingJoinPoint joinPoint, String bucketName, String key) throws Throwable {
+        S3RequestEvent event = newEvent("get", bucketName, key);
+        Object object = time(joinPoint, "get", event);
+        recordPayloadSize("get", (byte[]) object);
+        return object;
+    }
+
+    private static S3RequestEvent newEvent(String operation, String bucketName, String key) {
+        S3RequestEvent event = new S3RequestEvent();
+        event.setOperation(operation);
+        event.setBucket(bucketName);
+        event.setKey(key);
+        return event;
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, String operation, S3RequestEvent event) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        event.begin();
+        String outcome = "success";
+        String exception = "none";
+        try {
+            Object object = joinPoint.proceed();
+            if (object instanceof byte[] bytes) {
+                event.setBytes(bytes.length);
+            }
+            return object;
+        } catch (Throwable e) {
+            outcome = "error";
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            event.setSuccess(outcome.equals("success"));
+            event.commit();
+            long nanos = sample.stop(Timer.builder("s3.requests")
+                    .description("S3Service request time")
+                    .tag("client", client)
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .tag("exception", exception)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            ServerTiming.record(ServerTiming.S3, nanos);
+        }
+    }
+
+    private void recordPayloadSize(String operation, byte[] payload) {
+        if (payload == null) {
+            return;
+        }
+        DistributionSummary.builder("s3.payload.size")
+                .description("S3 object size")
+                .baseUnit("bytes")
+                .tag("client", client)
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(payload.length);
+    }
+}
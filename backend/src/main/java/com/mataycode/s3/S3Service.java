@@ -1,5 +1,6 @@
 package com.mataycode.s3;
 
+import com.mataycode.concurrent.SingleFlight;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
@@ -14,9 +15,11 @@ import java.io.IOException;
 public class S3Service {
 
     private final S3Client s3;
+    private final SingleFlight<String, byte[]> s3ObjectSingleFlight;
 
-    public S3Service(S3Client s3Client) {
+    public S3Service(S3Client s3Client, SingleFlight<String, byte[]> s3ObjectSingleFlight) {
         this.s3 = s3Client;
+        this.s3ObjectSingleFlight = s3ObjectSingleFlight;
     }
 
     //Upload to bucket
@@ -29,8 +32,16 @@ public class S3Service {
         s3.putObject(putObjectRequest, RequestBody.fromBytes(file));
     }
 
-    //Download from bucket
+    //Download from bucket, concurrent downloads of the same object share one request
     public byte[] getObject(String bucketName, String key) {
+        //only waiters get a copy (see SingleFlightConfig), no caller shares an array with another
+        return s3ObjectSingleFlight.execute(
+                bucketName + "/" + key,
+                () -> fetchObject(bucketName, key)
+        );
+    }
+
+    private byte[] fetchObject(String bucketName, String key) {
         GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                 .bucket(bucketName)
                 .key(key)
@@ -36,6 +36,8 @@ public class SecurityFilterChainConfig {
                         .requestMatchers(HttpMethod.POST, "/api/v1/customers", "api/v1/auth/login").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/v1/customers/*/profile-image").permitAll()
                         .requestMatchers(HttpMethod.GET, "/ping").permitAll()
+                        .requestMatchers("/actuator/jfr", "/actuator/jfr/**").authenticated()
+                        .requestMatchers("/actuator/slowqueries", "/actuator/slowqueries/**").authenticated()
                         .requestMatchers(HttpMethod.GET, "/actuator/**").permitAll()
                         .anyRequest().authenticated()
                 )
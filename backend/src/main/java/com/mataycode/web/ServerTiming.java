@@ -0,0 +1,92 @@
+package com.mataycode.web;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Per-request latency breakdown rendered as the Server-Timing response header.
+ * Opened and closed by ServerTimingFilter; record() is a no-op on threads without an open request,
+ * so callers (JWT filter, DAO and S3 aspects) never need to check whether timing is enabled.
+ */
+public final class ServerTiming {
+
+    public static final String JWT = "jwt";
+    public static final String USER = "user";
+    public static final String DB = "db";
+    public static final String S3 = "s3";
+    public static final String SERIALIZATION = "ser";
+    public static final String TOTAL = "total";
+
+    private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Metric> metrics = new LinkedHashMap<>();
+    private final long startNanos = System.nanoTime();
+    private long serializationStartNanos;
+
+    private static final class Metric {
+        private int count;
+        private long nanos;
+    }
+
+    private ServerTiming() {
+    }
+
+    static ServerTiming begin() {
+        ServerTiming timing = new ServerTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    public static void record(String metric, long nanos) {
+        ServerTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.add(metric, nanos);
+        }
+    }
+
+    //total of a metric recorded so far on this thread, lets an enclosing span leave out nested metrics
+    public static long recordedNanos(String metric) {
+        ServerTiming timing = CURRENT.get();
+        if (timing == null) {
+            return 0;
+        }
+        Metric entry = timing.metrics.get(metric);
+        return entry != null ? entry.nanos : 0;
+    }
+
+    static void startSerialization() {
+        ServerTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.serializationStartNanos = System.nanoTime();
+        }
+    }
+
+    void add(String metric, long nanos) {
+        Metric entry = metrics.computeIfAbsent(metric, m -> new Metric());
+        entry.count++;
+        entry.nanos += nanos;
+    }
+
+    //body is buffered by the filter, so everything after the body advice until here is serialization
+    String toHeaderValue() {
+        long now = System.nanoTime();
+        if (serializationStartNanos != 0) {
+            add(SERIALIZATION, now - serializationStartNanos);
+        }
+        add(TOTAL, now - startNanos);
+        return metrics.entrySet().stream()
+                .map(entry -> format(entry.getKey(), entry.getValue()))
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String format(String name, Metric metric) {
+        String value = String.format(Locale.ROOT, "%s;dur=%.1f", name, metric.nanos / 1_000_000.0);
+        return metric.count > 1 ? value + ";desc=\"" + metric.count + " calls\"" : value;
+    }
+}
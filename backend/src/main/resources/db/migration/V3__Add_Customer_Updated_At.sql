@@ -0,0 +1,14 @@
+ALTER TABLE customer
+    ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT now();
+
+CREATE OR REPLACE FUNCTION customer_set_updated_at() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.updated_at = clock_timestamp();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_updated_at
+    BEFORE UPDATE ON customer
+    FOR EACH ROW
+    EXECUTE FUNCTION customer_set_updated_at();
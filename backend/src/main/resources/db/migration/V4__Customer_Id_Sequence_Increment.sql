@@ -0,0 +1,3 @@
+-- JPA reserves blocks of ids (pooled-lo optimizer), one nextval per block instead of one per insert.
+-- Inserts relying on the SERIAL default take a whole block each - ids stay unique, just sparse.
+ALTER SEQUENCE customer_id_seq INCREMENT BY 50;
@@ -0,0 +1,16 @@
+-- Emails are stored trimmed and lower-cased (Customer.canonicalEmail), which makes customer_email_unique
+-- case-insensitive and lets every lookup by canonical email - including the natural-id resolution - use that index.
+-- Rows whose canonical email collides with another row are left untouched and make the CHECK below fail:
+-- such case-variant duplicates must be merged by hand before the migration can run.
+UPDATE customer c
+SET email = lower(trim(c.email))
+WHERE c.email <> lower(trim(c.email))
+  AND NOT EXISTS (
+    SELECT 1
+    FROM customer o
+    WHERE o.id <> c.id
+      AND lower(trim(o.email)) = lower(trim(c.email))
+);
+
+ALTER TABLE customer
+    ADD CONSTRAINT customer_email_canonical CHECK (email = lower(trim(email)));
@@ -0,0 +1,8 @@
+-- Trigram indexes for GET /api/v1/customers/search: they serve ILIKE '%...%' and the similarity operator (%).
+-- pg_trgm is a trusted extension (PostgreSQL 13+), the database owner can create it without superuser.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX customer_name_trgm_idx ON customer USING gin (name gin_trgm_ops);
+
+-- email is stored lower-cased (V5), so LIKE on the canonical query uses this index as well
+CREATE INDEX customer_email_trgm_idx ON customer USING gin (email gin_trgm_ops);
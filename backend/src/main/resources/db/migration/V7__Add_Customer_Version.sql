@@ -0,0 +1,3 @@
+-- Optimistic locking: every update increments version, a conditional update only applies to the version it read
+ALTER TABLE customer
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
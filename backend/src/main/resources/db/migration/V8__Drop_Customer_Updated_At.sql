@@ -0,0 +1,5 @@
+-- ETags are derived from version (V7), nothing reads updated_at and its trigger only slows every update
+DROP TRIGGER customer_updated_at ON customer;
+DROP FUNCTION customer_set_updated_at();
+ALTER TABLE customer
+    DROP COLUMN updated_at;
@@ -0,0 +1,31 @@
+package com.mataycode.aot;
+
+import com.mataycode.customer.CustomerDTO;
+import com.mataycode.customer.CustomerStatsRow;
+import com.mataycode.exception.ApiError;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NativeImageRuntimeHintsTest {
+
+    @Test
+    void registerHints() {
+        //GIVEN
+        RuntimeHints hints = new RuntimeHints();
+
+        //WHEN
+        new NativeImageRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        //THEN
+        assertThat(RuntimeHintsPredicates.reflection().onType(CustomerDTO.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(ApiError.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(CustomerStatsRow.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(TypeReference.of("io.jsonwebtoken.impl.DefaultJwtBuilder"))).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("db/migration/V1__Initial_Schema.sql")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("META-INF/services/io.jsonwebtoken.io.Serializer")).accepts(hints);
+    }
+}
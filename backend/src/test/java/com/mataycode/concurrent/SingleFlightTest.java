@@ -0,0 +1,166 @@
+package com.mataycode.concurrent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> underTest = new SingleFlight<>("test");
+
+    @Test
+    void concurrentCallsForSameKeyShareOneLoad() throws Exception {
+        //GIVEN
+        int callers = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        //WHEN
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> underTest.execute("foo", () -> {
+            loads.incrementAndGet();
+            loaderStarted.countDown();
+            await(releaseLoader);
+            return "bar";
+        })));
+        loaderStarted.await(5, TimeUnit.SECONDS);
+        for (int i = 1; i < callers; i++) {
+            results.add(executor.submit(() -> underTest.execute("foo", () -> {
+                loads.incrementAndGet();
+                return "other";
+            })));
+        }
+        //wait until every other caller joined the in-flight load
+        while (underTest.getCollapsedCount() < callers - 1) {
+            Thread.onSpinWait();
+        }
+        releaseLoader.countDown();
+
+        //THEN
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("bar");
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(underTest.getExecutedCount()).isEqualTo(1);
+        assertThat(underTest.getCollapsedCount()).isEqualTo(callers - 1);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void waitersGetCopyAndLeaderGetsLoadedValue() throws Exception {
+        //GIVEN
+        SingleFlight<String, byte[]> singleFlight = new SingleFlight<>("copy", null, byte[]::clone);
+        byte[] loaded = "bar".getBytes();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        //WHEN
+        Future<byte[]> leader = executor.submit(() -> singleFlight.execute("foo", () -> {
+            loaderStarted.countDown();
+            await(releaseLoader);
+            return loaded;
+        }));
+        loaderStarted.await(5, TimeUnit.SECONDS);
+        Future<byte[]> waiter = executor.submit(() -> singleFlight.execute("foo", () -> "other".getBytes()));
+        while (singleFlight.getCollapsedCount() < 1) {
+            Thread.onSpinWait();
+        }
+        releaseLoader.countDown();
+
+        //THEN
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isSameAs(loaded);
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isNotSameAs(loaded).isEqualTo(loaded);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void waiterTimesOutWhileLoadIsInFlight() throws Exception {
+        //GIVEN
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("timeout", Duration.ofMillis(50), value -> value);
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> leader = executor.submit(() -> singleFlight.execute("foo", () -> {
+            loaderStarted.countDown();
+            await(releaseLoader);
+            return "bar";
+        }));
+        loaderStarted.await(5, TimeUnit.SECONDS);
+
+        //WHEN
+        assertThatThrownBy(() -> singleFlight.execute("foo", () -> "other"))
+                .isInstanceOf(SingleFlightTimeoutException.class)
+                .hasMessageContaining("foo");
+
+        //THEN
+        releaseLoader.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("bar");
+        assertThat(singleFlight.getTimedOutCount()).isEqualTo(1);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void sequentialCallsAreNotCached() {
+        //WHEN
+        String first = underTest.execute("foo", () -> "bar");
+        String second = underTest.execute("foo", () -> "baz");
+
+        //THEN
+        assertThat(first).isEqualTo("bar");
+        assertThat(second).isEqualTo("baz");
+        assertThat(underTest.getExecutedCount()).isEqualTo(2);
+        assertThat(underTest.getCollapsedCount()).isZero();
+    }
+
+    @Test
+    void willThrowLoaderExceptionAndReleaseKey() {
+        //WHEN
+        assertThatThrownBy(() -> underTest.execute("foo", () -> {
+            throw new IllegalStateException("S3 is down");
+        }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("S3 is down");
+
+        //THEN
+        assertThat(underTest.execute("foo", () -> "bar")).isEqualTo("bar");
+    }
+
+    @Test
+    void canBindCounters() {
+        //GIVEN
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        underTest.bindTo(registry);
+
+        //WHEN
+        underTest.execute("foo", () -> "bar");
+
+        //THEN
+        assertThat(registry.get("singleflight.calls").tag("name", "test").tag("result", "executed").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("singleflight.calls").tag("name", "test").tag("result", "collapsed").functionCounter().count())
+                .isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
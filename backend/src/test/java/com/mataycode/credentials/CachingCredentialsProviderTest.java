@@ -0,0 +1,120 @@
+package com.mataycode.credentials;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CachingCredentialsProviderTest {
+
+    @TempDir
+    private Path directory;
+    private CachingCredentialsProvider underTest;
+
+    @AfterEach
+    void tearDown() {
+        if (underTest != null) {
+            underTest.close();
+        }
+    }
+
+    @Test
+    void canLoadAndRotateCredentials() throws IOException {
+        //GIVEN
+        Path file = writeSecret("mataycode", "password");
+        underTest = new CachingCredentialsProvider(new FileCredentialsSource(file), Duration.ofHours(1));
+        List<DatabaseCredentials> changes = new ArrayList<>();
+        underTest.onChange(changes::add);
+        writeSecret("mataycode", "rotated");
+
+        //WHEN
+        boolean refreshed = underTest.refresh();
+
+        //THEN
+        assertThat(refreshed).isTrue();
+        assertThat(underTest.getCredentials()).isEqualTo(new DatabaseCredentials("mataycode", "rotated"));
+        assertThat(changes).containsExactly(
+                new DatabaseCredentials("mataycode", "password"),
+                new DatabaseCredentials("mataycode", "rotated")
+        );
+    }
+
+    @Test
+    void willKeepCachedCredentialsWhenRefreshFails() throws IOException {
+        //GIVEN
+        Path file = writeSecret("mataycode", "password");
+        underTest = new CachingCredentialsProvider(new FileCredentialsSource(file), Duration.ofHours(1));
+        Files.delete(file);
+
+        //WHEN
+        boolean refreshed = underTest.refresh();
+
+        //THEN
+        assertThat(refreshed).isFalse();
+        assertThat(underTest.getCredentials()).isEqualTo(new DatabaseCredentials("mataycode", "password"));
+    }
+
+    @Test
+    void canRefreshAfterAuthFailureAtMostOncePerInterval() throws IOException {
+        //GIVEN
+        Path file = writeSecret("mataycode", "password");
+        underTest = new CachingCredentialsProvider(new FileCredentialsSource(file), Duration.ofHours(1), Duration.ofHours(1));
+        DatabaseCredentials rejected = new DatabaseCredentials("mataycode", "password");
+
+        //WHEN
+        boolean unchanged = underTest.refreshAfterAuthFailure(rejected);
+        writeSecret("mataycode", "rotated");
+        boolean rateLimited = underTest.refreshAfterAuthFailure(rejected);
+
+        //THEN
+        assertThat(unchanged).isFalse();
+        assertThat(rateLimited).isFalse();
+        assertThat(underTest.getCredentials()).isEqualTo(rejected);
+    }
+
+    @Test
+    void willRetryWithoutReloadWhenRejectedCredentialsAreAlreadyReplaced() throws IOException {
+        //GIVEN
+        Path file = writeSecret("mataycode", "password");
+        underTest = new CachingCredentialsProvider(new FileCredentialsSource(file), Duration.ofHours(1), Duration.ofHours(1));
+        writeSecret("mataycode", "rotated");
+        underTest.refresh();
+
+        //WHEN
+        boolean retry = underTest.refreshAfterAuthFailure(new DatabaseCredentials("mataycode", "password"));
+
+        //THEN
+        assertThat(retry).isTrue();
+    }
+
+    @Test
+    void willThrowWhenInitialLoadFails() {
+        //GIVEN
+        FileCredentialsSource source = new FileCredentialsSource(directory.resolve("missing.json"));
+
+        //WHEN
+        //THEN
+        assertThatThrownBy(() -> new CachingCredentialsProvider(source, Duration.ofHours(1)))
+                .hasMessageStartingWith("Failed to read database credentials from");
+    }
+
+    @Test
+    void willNotPrintPassword() {
+        assertThat(new DatabaseCredentials("mataycode", "secret").toString()).doesNotContain("secret");
+    }
+
+    private Path writeSecret(String username, String password) throws IOException {
+        return Files.writeString(directory.resolve("db-secret.json"), """
+                {"username": "%s", "password": "%s", "engine": "postgres", "port": 5432}
+                """.formatted(username, password));
+    }
+}
@@ -0,0 +1,93 @@
+package com.mataycode.credentials;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CredentialsRefreshingDataSourceTest {
+
+    @TempDir
+    private Path directory;
+    private final DataSource target = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+    private CachingCredentialsProvider credentialsProvider;
+    private CredentialsRefreshingDataSource underTest;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        credentialsProvider = new CachingCredentialsProvider(
+                new FileCredentialsSource(writeSecret("password")), Duration.ofHours(1), Duration.ofHours(1));
+        underTest = new CredentialsRefreshingDataSource(target, credentialsProvider);
+    }
+
+    @AfterEach
+    void tearDown() {
+        credentialsProvider.close();
+    }
+
+    @Test
+    void canRetryWithRotatedCredentialsAfterInvalidPassword() throws Exception {
+        //GIVEN
+        when(target.getConnection("mataycode", "password"))
+                .thenThrow(new SQLException("password authentication failed", "28P01"));
+        when(target.getConnection("mataycode", "rotated")).thenReturn(connection);
+        writeSecret("rotated");
+
+        //WHEN
+        Connection actual = underTest.getConnection("mataycode", "password");
+
+        //THEN
+        assertThat(actual).isSameAs(connection);
+        assertThat(credentialsProvider.getCredentials()).isEqualTo(new DatabaseCredentials("mataycode", "rotated"));
+    }
+
+    @Test
+    void willNotRetryWhenRefreshReturnsTheRejectedCredentials() throws Exception {
+        //GIVEN
+        SQLException invalidPassword = new SQLException("password authentication failed", "28P01");
+        when(target.getConnection("mataycode", "password")).thenThrow(invalidPassword);
+
+        //WHEN
+        //THEN
+        assertThatThrownBy(() -> underTest.getConnection("mataycode", "password")).isSameAs(invalidPassword);
+        assertThatThrownBy(() -> underTest.getConnection("mataycode", "password")).isSameAs(invalidPassword);
+        verify(target, times(2)).getConnection("mataycode", "password");
+    }
+
+    @Test
+    void willNotRefreshOnOtherConnectionErrors() throws Exception {
+        //GIVEN
+        SQLException connectionRefused = new SQLException("Connection refused", "08001");
+        when(target.getConnection("mataycode", "password")).thenThrow(connectionRefused);
+        writeSecret("rotated");
+
+        //WHEN
+        //THEN
+        assertThatThrownBy(() -> underTest.getConnection()).isSameAs(connectionRefused);
+        verify(target, never()).getConnection("mataycode", "rotated");
+        assertThat(credentialsProvider.getCredentials()).isEqualTo(new DatabaseCredentials("mataycode", "password"));
+    }
+
+    private Path writeSecret(String password) throws IOException {
+        return Files.writeString(directory.resolve("db-secret.json"), """
+                {"username": "mataycode", "password": "%s"}
+                """.formatted(password));
+    }
+}
@@ -0,0 +1,99 @@
+package com.mataycode.customer;
+
+import com.mataycode.jwt.JWTUtil;
+import com.mataycode.jwt.JwtAuthenticationFilter;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CustomerControllerTest {
+
+    private static final String MIXED_CASE_EMAIL = "Luna@Dev.com";
+
+    private final JWTUtil jwtUtil = new JWTUtil();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        CustomerService customerService = mock(CustomerService.class);
+        when(customerService.addCustomer(any())).thenReturn("luna@dev.com");
+        VersionedCustomerDTO luna = new VersionedCustomerDTO(new CustomerDTO(
+                1, "Luna", "luna@dev.com", Gender.FEMALE, 23, List.of("ROLE_USER"), "luna@dev.com", null), 0L);
+        when(customerService.getVersionedCustomerById(1)).thenReturn(luna);
+        when(customerService.getCustomerETag(luna)).thenReturn("\"1-0\"");
+
+        //the lookup is case-insensitive, the stored username is the canonical email
+        CustomerDao customerDao = mock(CustomerDao.class);
+        when(customerDao.selectUserByEmail(anyString())).thenReturn(Optional.of(
+                new Customer(1, "Luna", MIXED_CASE_EMAIL, "password", 23, Gender.FEMALE)));
+
+        //stands in for anyRequest().authenticated() of the security filter chain
+        Filter requireAuthentication = (request, response, chain) -> {
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                ((HttpServletResponse) response).sendError(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
+            chain.doFilter(request, response);
+        };
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new CustomerController(customerService, jwtUtil))
+                .addFilter(new JwtAuthenticationFilter(jwtUtil, new CustomerUserDetailsService(customerDao)))
+                .addFilter(requireAuthentication, "/api/v1/customers/1")
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void canCallAuthenticatedEndpointWithSignupTokenOfMixedCaseEmail() throws Exception {
+        //GIVEN
+        String jwtToken = mockMvc.perform(post("/api/v1/customers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"name":"Luna","email":"%s","password":"password","age":23,"gender":"FEMALE"}
+                                """.formatted(MIXED_CASE_EMAIL)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.AUTHORIZATION);
+
+        //WHEN
+        //THEN
+        mockMvc.perform(get("/api/v1/customers/1")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtToken))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void willRejectTokenNotIssuedForTheStoredUsername() throws Exception {
+        //GIVEN
+        String jwtToken = jwtUtil.issueToken(MIXED_CASE_EMAIL, "ROLE_USER");
+
+        //WHEN
+        //THEN
+        mockMvc.perform(get("/api/v1/customers/1")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtToken))
+                .andExpect(status().isUnauthorized());
+    }
+}
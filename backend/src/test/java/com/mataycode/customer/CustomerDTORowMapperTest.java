@@ -0,0 +1,61 @@
+package com.mataycode.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CustomerDTORowMapperTest {
+
+    @Test
+    void mapRow() throws SQLException {
+        //GIVEN
+        CustomerDTORowMapper customerDTORowMapper = new CustomerDTORowMapper();
+
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getInt("id")).thenReturn(1);
+        when(resultSet.getString("name")).thenReturn("John");
+        when(resultSet.getString("email")).thenReturn("john@gmail.com");
+        when(resultSet.getInt("age")).thenReturn(21);
+        when(resultSet.getString("gender")).thenReturn("MALE");
+        when(resultSet.getString("profile_image_id")).thenReturn("55555");
+
+        //WHEN
+        CustomerDTO actual = customerDTORowMapper.mapRow(resultSet, 1);
+
+        //THEN
+        CustomerDTO expected = new CustomerDTO(1, "John", "john@gmail.com", Gender.MALE, 21, List.of("ROLE_USER"), "john@gmail.com", "55555");
+        assertThat(actual).isEqualTo(expected);
+        verify(resultSet, never()).getString("password");
+    }
+
+    @Test
+    void mapsSameDTOAsEntityMapper() throws SQLException {
+        //GIVEN
+        Customer customer = new Customer(1, "John", "john@gmail.com", "password", 21, Gender.MALE, "55555");
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getInt("id")).thenReturn(customer.getId());
+        when(resultSet.getInt("age")).thenReturn(customer.getAge());
+        when(resultSet.getString(anyString())).thenAnswer(invocation -> switch (invocation.<String>getArgument(0)) {
+            case "name" -> customer.getName();
+            case "email" -> customer.getEmail();
+            case "gender" -> customer.getGender().name();
+            case "profile_image_id" -> customer.getProfileImageId();
+            default -> null;
+        });
+
+        //WHEN
+        CustomerDTO actual = new CustomerDTORowMapper().mapRow(resultSet, 1);
+
+        //THEN
+        assertThat(actual).isEqualTo(new CustomerDTOMapper().apply(customer));
+    }
+}
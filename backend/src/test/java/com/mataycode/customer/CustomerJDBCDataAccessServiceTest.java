@@ -3,23 +3,28 @@ package com.mataycode.customer;
 import com.mataycode.AbstractTestcontainers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
 
     private CustomerJDBCDataAccessService underTest;
     private final CustomerRowMapper customerRowMapper = new CustomerRowMapper();
+    private final CustomerDTORowMapper customerDTORowMapper = new CustomerDTORowMapper();
 
     @BeforeEach
     void setUp() {
         underTest = new CustomerJDBCDataAccessService(
                 getJdbcTemplate(),
-                customerRowMapper
+                customerRowMapper,
+                customerDTORowMapper
         );
     }
 
@@ -81,6 +86,67 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
         assertThat(actual).isEmpty();
     }
 
+    @Test
+    void selectCustomersByIds() {
+        //GIVEN
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password", 20,
+                Gender.MALE);
+        underTest.insertCustomer(customer);
+
+        int id = underTest.selectAllCustomers()
+                .stream()
+                .filter(c -> c.getEmail().equals(email))
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+
+        //WHEN
+        List<Customer> actual = underTest.selectCustomersByIds(List.of(id, -1));
+
+        //THEN
+        assertThat(actual).hasSize(1).allSatisfy(c -> {
+            assertThat(c.getId()).isEqualTo(id);
+            assertThat(c.getEmail()).isEqualTo(email);
+        });
+    }
+
+    @Test
+    void selectCustomerDTOById() {
+        //GIVEN
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                "password", 20,
+                Gender.MALE);
+        underTest.insertCustomer(customer);
+
+        int id = underTest.selectAllCustomerDTOs()
+                .stream()
+                .filter(c -> c.email().equals(email))
+                .map(CustomerDTO::id)
+                .findFirst()
+                .orElseThrow();
+
+        //WHEN
+        Optional<CustomerDTO> actual = underTest.selectCustomerDTOById(id);
+        List<CustomerDTO> actualByIds = underTest.selectCustomerDTOsByIds(List.of(id, -1));
+
+        //THEN
+        assertThat(actual).isPresent().hasValueSatisfying(c -> {
+            assertThat(c.id()).isEqualTo(id);
+            assertThat(c.name()).isEqualTo(customer.getName());
+            assertThat(c.email()).isEqualTo(email);
+            assertThat(c.age()).isEqualTo(customer.getAge());
+            assertThat(c.gender()).isEqualTo(customer.getGender());
+        });
+        assertThat(actualByIds).containsExactly(actual.get());
+    }
+
     @Test
     void existPersonWithEmail() {
         //GIVEN
@@ -97,6 +163,42 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
         assertThat(actual).isTrue();
     }
 
+    @Test
+    void selectUserByEmailIgnoresCase() {
+        //GIVEN
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(), email.toUpperCase(), "password", 23,
+                Gender.MALE);
+        underTest.insertCustomer(customer);
+
+        //WHEN
+        Optional<Customer> actual = underTest.selectUserByEmail(" " + email.toUpperCase());
+
+        //THEN
+        assertThat(actual).hasValueSatisfying(c -> assertThat(c.getEmail()).isEqualTo(email.toLowerCase()));
+    }
+
+    @Test
+    void searchCustomerDTOsRanksPrefixMatchesFirst() {
+        //GIVEN
+        String marker = UUID.randomUUID().toString().substring(0, 8);
+        Customer prefixMatch = new Customer("Zed " + marker, marker + "@search.dev", "password", 30, Gender.MALE);
+        Customer containsMatch = new Customer("Ann", "ann-" + marker + "@search.dev", "password", 31, Gender.FEMALE);
+        underTest.insertCustomer(prefixMatch);
+        underTest.insertCustomer(containsMatch);
+
+        //WHEN
+        List<CustomerSearchHit> firstPage = underTest.searchCustomerDTOs(
+                CustomerSearchQuery.of(marker.toUpperCase()), CustomerSearchCursor.FIRST, 1, Duration.ofSeconds(5));
+        List<CustomerSearchHit> secondPage = underTest.searchCustomerDTOs(
+                CustomerSearchQuery.of(marker), CustomerSearchCursor.of(firstPage.get(0)), 10, Duration.ofSeconds(5));
+
+        //THEN
+        assertThat(firstPage).extracting(hit -> hit.customer().email()).containsExactly(prefixMatch.getEmail());
+        assertThat(secondPage).extracting(hit -> hit.customer().email()).containsExactly(containsMatch.getEmail());
+    }
+
     @Test
     void existsPersonWithEmailWillReturnFalseWhenDoesNotExists() {
         //GIVEN
@@ -340,6 +442,29 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
         });
     }
 
+    @Test
+    void willThrowWhenUpdateCustomerVersionIsStale() {
+        //GIVEN
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(FAKER.name().fullName(), email, "password", 20, Gender.MALE);
+        underTest.insertCustomer(customer);
+
+        Customer first = underTest.selectCustomerById(customer.getId()).orElseThrow();
+        Customer second = underTest.selectCustomerById(customer.getId()).orElseThrow();
+        first.setName("first");
+        second.setName("second");
+        underTest.updateCustomer(first);
+
+        //WHEN
+        assertThatThrownBy(() -> underTest.updateCustomer(second))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+
+        //THEN
+        Customer actual = underTest.selectCustomerById(customer.getId()).orElseThrow();
+        assertThat(actual.getName()).isEqualTo("first");
+        assertThat(actual.getVersion()).isEqualTo(first.getVersion()).isEqualTo(second.getVersion() + 1);
+    }
+
     @Test
     void canUpdateProfileImageId() {
         //GIVEN
@@ -364,4 +489,45 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
             assertThat(c.getProfileImageId()).isEqualTo("2222");
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void customerVersionChangesAfterUpdate() {
+        //GIVEN
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(), email, "password", 23,
+                Gender.MALE);
+        underTest.insertCustomer(customer);
+
+        int id = underTest.selectAllCustomers().stream()
+                .filter(c -> c.getEmail().equals(email))
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+
+        long versionBefore = underTest.selectVersionedCustomerDTOById(id).orElseThrow().version();
+        String allVersionBefore = underTest.selectAllCustomersVersion();
+
+        //WHEN
+        underTest.updateProfileImageId("3333", id);
+
+        //THEN
+        assertThat(underTest.selectVersionedCustomerDTOById(id)).isPresent().hasValueSatisfying(actual -> {
+            assertThat(actual.version()).isGreaterThan(versionBefore);
+            assertThat(actual.customer().profileImageId()).isEqualTo("3333");
+        });
+        assertThat(underTest.selectAllCustomersVersion()).isNotEqualTo(allVersionBefore);
+    }
+
+    @Test
+    void willReturnEmptyWhenSelectVersionedCustomerDTOById() {
+        //GIVEN
+        int id = -1;
+
+        //WHEN
+        var actual = underTest.selectVersionedCustomerDTOById(id);
+
+        //THEN
+        assertThat(actual).isEmpty();
+    }
+}
@@ -6,12 +6,17 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 class CustomerJPADataAccessServiceTest {
@@ -46,7 +51,7 @@ class CustomerJPADataAccessServiceTest {
         assertThat(expected).isEqualTo(customers);
         ArgumentCaptor<Pageable> pageableArgumentCaptor = ArgumentCaptor.forClass(Pageable.class);
         verify(customerRepository).findAll(pageableArgumentCaptor.capture());
-        assertThat(pageableArgumentCaptor.getValue()).isEqualTo(Pageable.ofSize(50));
+        assertThat(pageableArgumentCaptor.getValue()).isEqualTo(PageRequest.of(0, 50, Sort.by("id")));
     }
 
     @Test
@@ -61,6 +66,56 @@ class CustomerJPADataAccessServiceTest {
         verify(customerRepository).findById(id);
     }
 
+    @Test
+    void selectCustomersByIds() {
+        //GIVEN
+        List<Integer> ids = List.of(1, 2);
+
+        //WHEN
+        underTest.selectCustomersByIds(ids);
+
+        //THEN
+        verify(customerRepository).findAllById(ids);
+    }
+
+    @Test
+    void selectAllCustomerDTOs() {
+        //GIVEN
+        CustomerView view = new CustomerView(1, "Luna", "luna@dev.com", Gender.MALE, 23, null);
+        when(customerRepository.findAllViews(PageRequest.of(0, 50, Sort.by("id")))).thenReturn(List.of(view));
+
+        //WHEN
+        List<CustomerDTO> actual = underTest.selectAllCustomerDTOs();
+
+        //THEN
+        assertThat(actual).containsExactly(view.toDTO());
+        verify(customerRepository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void selectCustomerDTOById() {
+        //GIVEN
+        int id = 1;
+
+        //WHEN
+        underTest.selectCustomerDTOById(id);
+
+        //THEN
+        verify(customerRepository).findViewById(id);
+    }
+
+    @Test
+    void selectCustomerDTOsByIds() {
+        //GIVEN
+        List<Integer> ids = List.of(1, 2);
+
+        //WHEN
+        underTest.selectCustomerDTOsByIds(ids);
+
+        //THEN
+        verify(customerRepository).findViewsByIds(ids);
+    }
+
     @Test
     void insertCustomer() {
         //GIVEN
@@ -87,6 +142,30 @@ class CustomerJPADataAccessServiceTest {
         verify(customerRepository).existsCustomerByEmail(email);
     }
 
+    @Test
+    void selectUserByEmailLooksUpCanonicalEmail() {
+        //GIVEN
+        String email = " Luna@Dev.com";
+
+        //WHEN
+        underTest.selectUserByEmail(email);
+
+        //THEN
+        verify(customerRepository).findCustomerByEmail("luna@dev.com");
+    }
+
+    @Test
+    void existPersonWithEmailLooksUpCanonicalEmail() {
+        //GIVEN
+        String email = " Luna@Dev.com";
+
+        //WHEN
+        underTest.existPersonWithEmail(email);
+
+        //THEN
+        verify(customerRepository).existsCustomerByEmail("luna@dev.com");
+    }
+
     @Test
     void existPersonWithId() {
         //GIVEN
@@ -112,17 +191,50 @@ class CustomerJPADataAccessServiceTest {
     }
 
     @Test
-    void updateCustomer() {
+    void updateCustomerChangesOnlyGivenFieldsOfManagedCustomer() {
         //GIVEN
         Customer customer = new Customer(
                 1, "Luna", "luna@dev.com", "password", 23,
                 Gender.MALE);
+        customer.setVersion(3L);
+        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
+        Customer update = new Customer();
+        update.setId(1);
+        update.setVersion(3L);
+        update.setAge(24);
 
         //WHEN
-        underTest.updateCustomer(customer);
+        underTest.updateCustomer(update);
 
         //THEN
-        verify(customerRepository).save(customer);
+        assertThat(customer.getName()).isEqualTo("Luna");
+        assertThat(customer.getEmail()).isEqualTo("luna@dev.com");
+        assertThat(customer.getPassword()).isEqualTo("password");
+        assertThat(customer.getGender()).isEqualTo(Gender.MALE);
+        assertThat(customer.getAge()).isEqualTo(24);
+        verify(customerRepository).flush();
+        verify(customerRepository, never()).save(any());
+    }
+
+    @Test
+    void willThrowWhenUpdateCustomerVersionIsStale() {
+        //GIVEN
+        Customer customer = new Customer(
+                1, "Luna", "luna@dev.com", "password", 23,
+                Gender.MALE);
+        customer.setVersion(4L);
+        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
+        Customer update = new Customer();
+        update.setId(1);
+        update.setVersion(3L);
+        update.setAge(24);
+
+        //WHEN
+        //THEN
+        assertThatThrownBy(() -> underTest.updateCustomer(update))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(customer.getAge()).isEqualTo(23);
+        verify(customerRepository, never()).flush();
     }
 
     @Test
@@ -137,4 +249,25 @@ class CustomerJPADataAccessServiceTest {
         //THEN
         verify(customerRepository).updateProfileImageId(profileImageId, customerId);
     }
-}
\ No newline at end of file
+
+    @Test
+    void selectVersionedCustomerDTOById() {
+        //GIVEN
+        int id = 1;
+
+        //WHEN
+        underTest.selectVersionedCustomerDTOById(id);
+
+        //THEN
+        verify(customerRepository).findVersionedViewById(id);
+    }
+
+    @Test
+    void selectAllCustomersVersion() {
+        //WHEN
+        underTest.selectAllCustomersVersion();
+
+        //THEN
+        verify(customerRepository).findAllCustomersVersion();
+    }
+}
@@ -0,0 +1,132 @@
+package com.mataycode.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerPrefixIndexTest {
+
+    private final List<Runnable> compactions = new ArrayList<>();
+    private final Executor compactionExecutor = compactions::add;
+    private final CustomerPrefixIndex underTest = new CustomerPrefixIndex(100, 3, compactionExecutor);
+
+    @Test
+    void suggestsByNameWordAndEmailPrefixIgnoringCase() {
+        //GIVEN
+        CustomerSuggestion john = new CustomerSuggestion(1, "John Smith", "john@dev.com");
+        CustomerSuggestion anna = new CustomerSuggestion(2, "Anna Smithers", "anna@dev.com");
+        CustomerSuggestion zoe = new CustomerSuggestion(3, "Zoë Ålund", "zoe@dev.com");
+        underTest.reload(consumer -> List.of(john, anna, zoe).forEach(consumer));
+
+        //WHEN
+        //THEN
+        assertThat(underTest.isReady()).isTrue();
+        assertThat(underTest.suggest("SMI", 10)).containsExactlyInAnyOrder(john, anna);
+        assertThat(underTest.suggest("anna@", 10)).containsExactly(anna);
+        assertThat(underTest.suggest("ålu", 10)).containsExactly(zoe);
+        assertThat(underTest.suggest("mith", 10)).isEmpty();
+    }
+
+    @Test
+    void returnsEachCustomerOnceUpToLimit() {
+        //GIVEN
+        underTest.reload(consumer -> IntStream.rangeClosed(1, 20)
+                .mapToObj(i -> new CustomerSuggestion(i, "Sam Samson " + i, "sam" + i + "@dev.com"))
+                .forEach(consumer));
+
+        //WHEN
+        List<CustomerSuggestion> actual = underTest.suggest("sam", 5);
+
+        //THEN
+        assertThat(actual).hasSize(5).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void changesWinOverSnapshotBeforeAndAfterCompaction() {
+        //GIVEN
+        underTest.reload(consumer -> List.of(
+                new CustomerSuggestion(1, "John Smith", "john@dev.com"),
+                new CustomerSuggestion(2, "Anna Smithers", "anna@dev.com")
+        ).forEach(consumer));
+
+        //WHEN
+        underTest.put(new CustomerSuggestion(1, "Johnny Black", "johnny@dev.com"));
+        underTest.remove(2);
+        underTest.put(new CustomerSuggestion(3, "Mia Smith", "mia@dev.com"));
+        List<CustomerSuggestion> beforeCompaction = underTest.suggest("smi", 10);
+        compactions.forEach(Runnable::run);
+
+        //THEN
+        assertThat(compactions).hasSize(1);
+        assertThat(beforeCompaction).containsExactly(new CustomerSuggestion(3, "Mia Smith", "mia@dev.com"));
+        assertThat(underTest.suggest("smi", 10)).containsExactly(new CustomerSuggestion(3, "Mia Smith", "mia@dev.com"));
+        assertThat(underTest.suggest("bla", 10)).containsExactly(new CustomerSuggestion(1, "Johnny Black", "johnny@dev.com"));
+        assertThat(underTest.size()).isEqualTo(2);
+    }
+
+    @Test
+    void keepsChangesMadeWhileReloading() {
+        //GIVEN
+        CustomerSuggestion renamed = new CustomerSuggestion(1, "Johnny Black", "johnny@dev.com");
+
+        //WHEN
+        underTest.reload(consumer -> {
+            consumer.accept(new CustomerSuggestion(1, "John Smith", "john@dev.com"));
+            underTest.put(renamed);
+        });
+
+        //THEN
+        assertThat(underTest.suggest("john", 10)).containsExactly(renamed);
+    }
+
+    @Test
+    void suggestsInTermOrderAcrossManyCustomers() {
+        //GIVEN
+        CustomerPrefixIndex index = new CustomerPrefixIndex(2_000, 3, compactionExecutor);
+        index.reload(consumer -> IntStream.range(0, 1_000)
+                //reversed and repeated names, so sorting has to handle descending runs and equal terms
+                .mapToObj(i -> new CustomerSuggestion(i, "Name " + (999 - i) % 100, "mail" + (999 - i) + "@dev.com"))
+                .forEach(consumer));
+
+        //WHEN
+        List<CustomerSuggestion> actual = index.suggest("mail", 1_000);
+
+        //THEN
+        assertThat(actual).extracting(CustomerSuggestion::email).isSortedAccordingTo(String::compareTo).hasSize(1_000);
+        assertThat(index.suggest("name 42", 100)).hasSize(10);
+    }
+
+    @Test
+    void derivesMaxCustomersFromHeap() {
+        //GIVEN
+        long maxHeapBytes = 128L * 1024 * 1024;
+
+        //WHEN
+        int actual = CustomerPrefixIndex.maxCustomersFor(maxHeapBytes, 0.25);
+
+        //THEN
+        assertThat(actual).isEqualTo(65_536);
+        assertThat((long) actual * CustomerPrefixIndex.BUILD_PEAK_BYTES_PER_CUSTOMER).isLessThanOrEqualTo(maxHeapBytes / 4);
+    }
+
+    @Test
+    void switchesOffWhenMoreCustomersThanMax() {
+        //GIVEN
+        CustomerPrefixIndex index = new CustomerPrefixIndex(10, 3, compactionExecutor);
+
+        //WHEN
+        boolean actual = index.reload(consumer -> IntStream.rangeClosed(1, 11)
+                .mapToObj(i -> new CustomerSuggestion(i, "Customer " + i, "customer" + i + "@dev.com"))
+                .forEach(consumer));
+
+        //THEN
+        assertThat(actual).isFalse();
+        assertThat(index.isReady()).isFalse();
+        assertThat(index.size()).isZero();
+    }
+}
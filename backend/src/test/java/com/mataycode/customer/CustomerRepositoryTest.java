@@ -7,10 +7,13 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.Import;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -21,6 +24,8 @@ class CustomerRepositoryTest extends AbstractTestcontainers {
 
     @Autowired
     private CustomerRepository underTest;
+    @Autowired
+    private TestEntityManager entityManager;
 
     @BeforeEach
     void setUp() {
@@ -46,6 +51,28 @@ class CustomerRepositoryTest extends AbstractTestcontainers {
         assertThat(actual).isTrue();
     }
 
+    @Test
+    void canAssignIdsFromOneSequenceBlock() {
+        //GIVEN
+        List<Customer> customers = IntStream.range(0, Customer.ID_ALLOCATION_SIZE)
+                .mapToObj(i -> new Customer(
+                        FAKER.name().fullName(),
+                        FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                        "password", 20,
+                        Gender.MALE))
+                .toList();
+
+        //WHEN
+        List<Integer> ids = underTest.saveAll(customers).stream()
+                .map(Customer::getId)
+                .sorted()
+                .toList();
+
+        //THEN
+        assertThat(ids.get(ids.size() - 1) - ids.get(0)).isLessThan(2 * Customer.ID_ALLOCATION_SIZE);
+        assertThat(ids).doesNotHaveDuplicates();
+    }
+
     @Test
     void existsCustomerByEmailFailsWhenEmailNotPresent() {
         //GIVEN
@@ -122,4 +149,37 @@ class CustomerRepositoryTest extends AbstractTestcontainers {
             assertThat(c.getProfileImageId()).isEqualTo("2222");
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void canUpdateOnlyChangedColumnsThroughJpaDao() {
+        //GIVEN
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = underTest.saveAndFlush(new Customer(
+                "Luna",
+                email,
+                "password", 20,
+                Gender.FEMALE));
+        Long version = customer.getVersion();
+        entityManager.clear();
+        //what CustomerService passes on: id, read version and the changed fields only
+        Customer update = new Customer();
+        update.setId(customer.getId());
+        update.setVersion(version);
+        update.setAge(21);
+
+        //WHEN
+        new CustomerJPADataAccessService(underTest).updateCustomer(update);
+        entityManager.clear();
+
+        //THEN
+        assertThat(update.getVersion()).isEqualTo(version + 1);
+        assertThat(underTest.findById(customer.getId())).hasValueSatisfying(c -> {
+            assertThat(c.getName()).isEqualTo("Luna");
+            assertThat(c.getEmail()).isEqualTo(email);
+            assertThat(c.getPassword()).isEqualTo("password");
+            assertThat(c.getGender()).isEqualTo(Gender.FEMALE);
+            assertThat(c.getAge()).isEqualTo(21);
+            assertThat(c.getVersion()).isEqualTo(version + 1);
+        });
+    }
+}
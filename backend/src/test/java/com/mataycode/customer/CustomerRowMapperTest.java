@@ -28,6 +28,7 @@ class CustomerRowMapperTest {
         when(resultSet.getInt("age")).thenReturn(21);
         when(resultSet.getString("gender")).thenReturn("MALE");
         when(resultSet.getString("profile_image_id")).thenReturn("55555");
+        when(resultSet.getLong("version")).thenReturn(7L);
 
         //WHEN
         Customer actual = customerRowMapper.mapRow(resultSet, 1);
@@ -35,5 +36,6 @@ class CustomerRowMapperTest {
         //THEN
         Customer expected = new Customer(1, "John", "john@gmail.com", "password", 21, Gender.MALE, "55555");
         assertThat(actual).isEqualTo(expected);
+        assertThat(actual.getVersion()).isEqualTo(7L);
     }
 }
\ No newline at end of file
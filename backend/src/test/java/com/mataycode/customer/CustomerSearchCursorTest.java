@@ -0,0 +1,43 @@
+package com.mataycode.customer;
+
+import com.mataycode.exception.RequestValidationException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerSearchCursorTest {
+
+    @Test
+    void decodesEncodedCursor() {
+        //GIVEN
+        CustomerSearchCursor cursor = new CustomerSearchCursor(1.3333334f, 42);
+
+        //WHEN
+        CustomerSearchCursor actual = CustomerSearchCursor.decode(cursor.encode());
+
+        //THEN
+        assertThat(actual).isEqualTo(cursor);
+    }
+
+    @Test
+    void willThrowWhenCursorIsInvalid() {
+        //WHEN
+        //THEN
+        assertThatThrownBy(() -> CustomerSearchCursor.decode("not-a-cursor"))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("Invalid search cursor [not-a-cursor]");
+    }
+
+    @Test
+    void escapesLikeWildcardsOfQuery() {
+        //WHEN
+        CustomerSearchQuery actual = CustomerSearchQuery.of(" 50%_Off ");
+
+        //THEN
+        assertThat(actual.text()).isEqualTo("50%_off");
+        assertThat(actual.prefix()).isEqualTo("50\\%\\_off%");
+        assertThat(actual.wordPrefix()).isEqualTo("% 50\\%\\_off%");
+        assertThat(actual.contains()).isEqualTo("%50\\%\\_off%");
+    }
+}
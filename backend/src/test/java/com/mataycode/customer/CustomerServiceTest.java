@@ -1,6 +1,8 @@
 package com.mataycode.customer;
 
+import com.mataycode.concurrent.SingleFlight;
 import com.mataycode.exception.DuplicateResourceException;
+import com.mataycode.exception.PreconditionFailedException;
 import com.mataycode.exception.RequestValidationException;
 import com.mataycode.exception.ResourceNotFoundException;
 import com.mataycode.s3.S3Buckets;
@@ -11,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.multipart.MultipartFile;
@@ -18,7 +21,10 @@ import org.testcontainers.shaded.org.checkerframework.checker.units.qual.C;
 
 import java.io.IOError;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -37,11 +43,17 @@ class CustomerServiceTest {
     private S3Service s3Service;
     @Mock
     private S3Buckets s3Buckets;
+    private CustomerSearchProperties searchProperties = new CustomerSearchProperties();
+    @Mock
+    private CustomerPrefixIndex customerPrefixIndex;
+    private CustomerTypeaheadProperties typeaheadProperties = new CustomerTypeaheadProperties();
+    @Mock
+    private CustomerStats customerStats;
 
     @BeforeEach
     void setUp() {
         autoCloseable = MockitoAnnotations.openMocks(this);
-        underTest = new CustomerService(customerDao, customerDTOMapper, passwordEncoder, s3Service, s3Buckets);
+        underTest = new CustomerService(customerDao, customerDTOMapper, passwordEncoder, s3Service, s3Buckets, new SingleFlight<>("customer"), searchProperties, customerPrefixIndex, typeaheadProperties, customerStats);
     }
 
     @AfterEach
@@ -55,7 +67,35 @@ class CustomerServiceTest {
         underTest.getAllCustomers();
 
         //THEN
-        verify(customerDao).selectAllCustomers();
+        verify(customerDao).selectAllCustomerDTOs();
+    }
+
+    @Test
+    void getCustomerStatsSeedsStatsBeforeFirstReconcile() {
+        //GIVEN
+        List<CustomerStatsRow> rows = List.of(new CustomerStatsRow(Gender.FEMALE, 23, 3));
+        when(customerStats.isReady()).thenReturn(false);
+        when(customerDao.selectCustomerStats()).thenReturn(rows);
+
+        //WHEN
+        underTest.getCustomerStats();
+
+        //THEN
+        verify(customerStats).reconcile(rows);
+        verify(customerStats).snapshot();
+    }
+
+    @Test
+    void getCustomerStatsServesCountersOnceReady() {
+        //GIVEN
+        when(customerStats.isReady()).thenReturn(true);
+
+        //WHEN
+        underTest.getCustomerStats();
+
+        //THEN
+        verify(customerDao, never()).selectCustomerStats();
+        verify(customerStats).snapshot();
     }
 
     @Test
@@ -63,7 +103,7 @@ class CustomerServiceTest {
         //GIVEN
         int id = 10;
         Customer customer = new Customer(id, "Luna", "luna@dev.com", "password", 23, Gender.MALE);
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        when(customerDao.selectVersionedCustomerDTOById(id)).thenReturn(Optional.of(new VersionedCustomerDTO(customerDTOMapper.apply(customer), 0L)));
 
         CustomerDTO expected = customerDTOMapper.apply(customer);
 
@@ -78,7 +118,7 @@ class CustomerServiceTest {
     void willThrowWhenGetCustomerByIdReturnEmptyOptional() {
         //GIVEN
         int id = 10;
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.empty());
+        when(customerDao.selectVersionedCustomerDTOById(id)).thenReturn(Optional.empty());
 
         //WHEN
         //THEN
@@ -87,6 +127,168 @@ class CustomerServiceTest {
                 .hasMessage("Customer with id [%s] not found".formatted(id));
     }
 
+    @Test
+    void canLookupCustomersInRequestOrder() {
+        //GIVEN
+        Customer first = new Customer(1, "Luna", "luna@dev.com", "password", 23, Gender.MALE);
+        Customer second = new Customer(2, "Sola", "sola@dev.com", "password", 31, Gender.FEMALE);
+        when(customerDao.selectCustomerDTOsByIds(List.of(2, 3, 1))).thenReturn(List.of(customerDTOMapper.apply(first), customerDTOMapper.apply(second)));
+
+        //WHEN
+        CustomerLookupResponse actual = underTest.lookupCustomers(new CustomerLookupRequest(List.of(2, 3, 1, 2)));
+
+        //THEN
+        assertThat(actual.customers()).containsExactly(customerDTOMapper.apply(second), customerDTOMapper.apply(first));
+        assertThat(actual.missingIds()).containsExactly(3);
+    }
+
+    @Test
+    void willThrowWhenLookupCustomersWithNoIds() {
+        //WHEN
+        //THEN
+        assertThatThrownBy(() -> underTest.lookupCustomers(new CustomerLookupRequest(List.of())))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("At least one customer id is required");
+
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void willThrowWhenLookupCustomersWithTooManyIds() {
+        //GIVEN
+        List<Integer> ids = IntStream.rangeClosed(1, CustomerService.MAX_LOOKUP_IDS + 1).boxed().toList();
+
+        //WHEN
+        //THEN
+        assertThatThrownBy(() -> underTest.lookupCustomers(new CustomerLookupRequest(ids)))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("Cannot lookup more than [%s] customers at once".formatted(CustomerService.MAX_LOOKUP_IDS));
+
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void searchCustomersReturnsCursorWhenMoreResultsExist() {
+        //GIVEN
+        searchProperties.setStatementTimeout(Duration.ofMillis(250));
+        CustomerDTO first = customerDTOMapper.apply(new Customer(1, "Luna", "luna@dev.com", "password", 23, Gender.FEMALE));
+        CustomerDTO second = customerDTOMapper.apply(new Customer(2, "Lunar", "lunar@dev.com", "password", 24, Gender.FEMALE));
+        CustomerDTO third = customerDTOMapper.apply(new Customer(3, "Lux", "lux@dev.com", "password", 25, Gender.MALE));
+        when(customerDao.searchCustomerDTOs(any(), any(), anyInt(), any())).thenReturn(List.of(
+                new CustomerSearchHit(first, 1.5f),
+                new CustomerSearchHit(second, 1.2f),
+                new CustomerSearchHit(third, 0.4f)
+        ));
+
+        //WHEN
+        CustomerSearchResponse actual = underTest.searchCustomers(" LUN ", null, 2);
+
+        //THEN
+        assertThat(actual.customers()).containsExactly(first, second);
+        assertThat(CustomerSearchCursor.decode(actual.nextCursor())).isEqualTo(new CustomerSearchCursor(1.2f, 2));
+        verify(customerDao).searchCustomerDTOs(
+                CustomerSearchQuery.of("lun"), CustomerSearchCursor.FIRST, 3, Duration.ofMillis(250));
+    }
+
+    @Test
+    void searchCustomersContinuesAfterCursor() {
+        //GIVEN
+        CustomerSearchCursor after = new CustomerSearchCursor(1.2f, 2);
+        when(customerDao.searchCustomerDTOs(any(), any(), anyInt(), any())).thenReturn(List.of());
+
+        //WHEN
+        CustomerSearchResponse actual = underTest.searchCustomers("luna", after.encode(), null);
+
+        //THEN
+        assertThat(actual.customers()).isEmpty();
+        assertThat(actual.nextCursor()).isNull();
+        verify(customerDao).searchCustomerDTOs(
+                CustomerSearchQuery.of("luna"), after, searchProperties.getDefaultPageSize() + 1, searchProperties.getStatementTimeout());
+    }
+
+    @Test
+    void willThrowWhenSearchQueryIsTooShort() {
+        //WHEN
+        //THEN
+        assertThatThrownBy(() -> underTest.searchCustomers(" lu ", null, null))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("Search query must have between [3] and [100] characters");
+
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void willThrowWhenSearchPageSizeIsTooLarge() {
+        //WHEN
+        //THEN
+        assertThatThrownBy(() -> underTest.searchCustomers("luna", null, searchProperties.getMaxPageSize() + 1))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("Search page size must be between 1 and [50]");
+
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void suggestCustomersFromIndexWhenReady() {
+        //GIVEN
+        CustomerSuggestion suggestion = new CustomerSuggestion(1, "Luna", "luna@dev.com");
+        when(customerPrefixIndex.isReady()).thenReturn(true);
+        when(customerPrefixIndex.suggest("lu", 10)).thenReturn(List.of(suggestion));
+
+        //WHEN
+        List<CustomerSuggestion> actual = underTest.suggestCustomers(" lu ", null);
+
+        //THEN
+        assertThat(actual).containsExactly(suggestion);
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void suggestCustomersFallsBackToSearchWhileIndexIsNotReady() {
+        //GIVEN
+        CustomerDTO luna = customerDTOMapper.apply(new Customer(1, "Luna", "luna@dev.com", "password", 23, Gender.FEMALE));
+        when(customerPrefixIndex.isReady()).thenReturn(false);
+        when(customerDao.searchCustomerDTOs(any(), any(), anyInt(), any())).thenReturn(List.of(new CustomerSearchHit(luna, 1.5f)));
+
+        //WHEN
+        List<CustomerSuggestion> shortPrefix = underTest.suggestCustomers("lu", 5);
+        List<CustomerSuggestion> actual = underTest.suggestCustomers("lun", 5);
+
+        //THEN
+        assertThat(shortPrefix).isEmpty();
+        assertThat(actual).containsExactly(new CustomerSuggestion(1, "Luna", "luna@dev.com"));
+        verify(customerDao).searchCustomerDTOs(CustomerSearchQuery.of("lun"), CustomerSearchCursor.FIRST, 6, searchProperties.getStatementTimeout());
+    }
+
+    @Test
+    void getAllCustomersETag() {
+        //GIVEN
+        when(customerDao.selectAllCustomersVersion()).thenReturn("0cc175b9c0f1b6a831c399e269772661");
+
+        //WHEN
+        String actual = underTest.getAllCustomersETag();
+
+        //THEN
+        assertThat(actual).isEqualTo("W/\"0cc175b9c0f1b6a831c399e269772661\"");
+        verify(customerDao, never()).selectAllCustomerDTOs();
+    }
+
+    @Test
+    void getVersionedCustomerById() {
+        //GIVEN
+        int id = 10;
+        CustomerDTO customer = customerDTOMapper.apply(new Customer(id, "Luna", "luna@dev.com", "password", 23, Gender.MALE));
+        when(customerDao.selectVersionedCustomerDTOById(id)).thenReturn(Optional.of(new VersionedCustomerDTO(customer, 1700000000000000L)));
+
+        //WHEN
+        VersionedCustomerDTO actual = underTest.getVersionedCustomerById(id);
+
+        //THEN
+        assertThat(actual.customer()).isEqualTo(customer);
+        assertThat(underTest.getCustomerETag(actual)).isEqualTo("\"10-1700000000000000\"");
+        verify(customerDao, never()).selectCustomerDTOById(id);
+    }
+
     @Test
     void addCustomer() {
         //GIVEN
@@ -113,6 +315,26 @@ class CustomerServiceTest {
         assertThat(capturedCustomer.getEmail()).isEqualTo(request.email());
         assertThat(capturedCustomer.getAge()).isEqualTo(request.age());
         assertThat(capturedCustomer.getPassword()).isEqualTo(passwordHash);
+        verify(customerPrefixIndex).put(CustomerSuggestion.of(capturedCustomer));
+        verify(customerStats).added(Gender.FEMALE, 23);
+    }
+
+    @Test
+    void addCustomerStoresCanonicalEmail() {
+        //GIVEN
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                "Luna", " Luna@Dev.COM ", "password", 23, Gender.FEMALE
+        );
+        when(customerDao.existPersonWithEmail(request.email())).thenReturn(false);
+
+        //WHEN
+        String username = underTest.addCustomer(request);
+
+        //THEN
+        ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
+        verify(customerDao).insertCustomer(customerArgumentCaptor.capture());
+        assertThat(customerArgumentCaptor.getValue().getEmail()).isEqualTo("luna@dev.com");
+        assertThat(username).isEqualTo("luna@dev.com");
     }
 
     @Test
@@ -138,20 +360,23 @@ class CustomerServiceTest {
     void deleteCustomerById() {
         //GIVEN
         int id = 10;
-        when(customerDao.existPersonWithId(id)).thenReturn(true);
+        CustomerDTO customer = customerDTOMapper.apply(new Customer(id, "Luna", "luna@dev.com", "password", 23, Gender.FEMALE));
+        when(customerDao.selectCustomerDTOById(id)).thenReturn(Optional.of(customer));
 
         //WHEN
         underTest.deleteCustomerById(id);
 
         //THEN
         verify(customerDao).deleteCustomerById(id);
+        verify(customerPrefixIndex).remove(id);
+        verify(customerStats).removed(Gender.FEMALE, 23);
     }
 
     @Test
     void willThrowDeleteCustomerByIdNotExists() {
         //GIVEN
         int id = 10;
-        when(customerDao.existPersonWithId(id)).thenReturn(false);
+        when(customerDao.selectCustomerDTOById(id)).thenReturn(Optional.empty());
 
         //WHEN
         assertThatThrownBy(() -> underTest.deleteCustomerById(id))
@@ -185,6 +410,8 @@ class CustomerServiceTest {
         assertThat(capturedCustomer.getEmail()).isEqualTo(updateRequest.email());
         assertThat(capturedCustomer.getAge()).isEqualTo(updateRequest.age());
         assertThat(capturedCustomer.getGender()).isEqualTo(updateRequest.gender());
+        assertThat(capturedCustomer.getPassword()).isNull();
+        verify(customerStats).changed(Gender.MALE, 23, Gender.FEMALE, 24);
     }
 
     @Test
@@ -206,9 +433,11 @@ class CustomerServiceTest {
 
         assertThat(capturedCustomer.getId()).isEqualTo(id);
         assertThat(capturedCustomer.getName()).isEqualTo(updateRequest.name());
-        assertThat(capturedCustomer.getEmail()).isEqualTo(customerToUpdate.getEmail());
-        assertThat(capturedCustomer.getAge()).isEqualTo(customerToUpdate.getAge());
-        assertThat(capturedCustomer.getGender()).isEqualTo(customerToUpdate.getGender());
+        //unchanged columns, the password included, are not written
+        assertThat(capturedCustomer.getEmail()).isNull();
+        assertThat(capturedCustomer.getAge()).isNull();
+        assertThat(capturedCustomer.getGender()).isNull();
+        assertThat(capturedCustomer.getPassword()).isNull();
     }
 
     @Test
@@ -230,9 +459,10 @@ class CustomerServiceTest {
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
         assertThat(capturedCustomer.getId()).isEqualTo(id);
-        assertThat(capturedCustomer.getName()).isEqualTo(customerToUpdate.getName());
+        assertThat(capturedCustomer.getName()).isNull();
         assertThat(capturedCustomer.getEmail()).isEqualTo(updateRequest.email());
-        assertThat(capturedCustomer.getAge()).isEqualTo(customerToUpdate.getAge());
+        assertThat(capturedCustomer.getAge()).isNull();
+        assertThat(capturedCustomer.getPassword()).isNull();
     }
 
     @Test
@@ -253,9 +483,10 @@ class CustomerServiceTest {
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
         assertThat(capturedCustomer.getId()).isEqualTo(id);
-        assertThat(capturedCustomer.getName()).isEqualTo(customerToUpdate.getName());
-        assertThat(capturedCustomer.getEmail()).isEqualTo(customerToUpdate.getEmail());
+        assertThat(capturedCustomer.getName()).isNull();
+        assertThat(capturedCustomer.getEmail()).isNull();
         assertThat(capturedCustomer.getAge()).isEqualTo(updateRequest.age());
+        assertThat(capturedCustomer.getPassword()).isNull();
     }
 
     @Test
@@ -297,6 +528,108 @@ class CustomerServiceTest {
         verify(customerDao, never()).updateCustomer(any());
     }
 
+    @Test
+    void willThrowWhenUpdateCustomerEmailDiffersOnlyInCase() {
+        //GIVEN
+        int id = 10;
+        Customer customerToUpdate = new Customer(id, "Luna", "luna@dev.com", "password", 23, Gender.MALE);
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(null, "LUNA@dev.com", null, null);
+
+        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customerToUpdate));
+
+        //WHEN
+        assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("No data changes found");
+
+        //THEN
+        verify(customerDao, never()).existPersonWithEmail(any());
+        verify(customerDao, never()).updateCustomer(any());
+    }
+
+    @Test
+    void canUpdateCustomerWhenIfMatchIsCurrent() {
+        //GIVEN
+        int id = 10;
+        Customer customerToUpdate = new Customer(id, "Luna", "luna@dev.com", "password", 23, Gender.MALE);
+        customerToUpdate.setVersion(3L);
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest("Sola", null, null, null);
+
+        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customerToUpdate));
+        ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
+        doAnswer(invocation -> {
+            Customer update = invocation.getArgument(0);
+            //compare-and-set against the version read before the update
+            assertThat(update.getVersion()).isEqualTo(3L);
+            update.setVersion(4L);
+            return null;
+        }).when(customerDao).updateCustomer(customerArgumentCaptor.capture());
+
+        //WHEN
+        String actual = underTest.updateCustomer(id, updateRequest, "\"10-3\"");
+
+        //THEN
+        assertThat(actual).isEqualTo("\"10-4\"");
+        assertThat(customerArgumentCaptor.getValue().getId()).isEqualTo(id);
+    }
+
+    @Test
+    void willThrowWhenUpdateCustomerIfMatchIsWeak() {
+        //GIVEN
+        int id = 10;
+        Customer customerToUpdate = new Customer(id, "Luna", "luna@dev.com", "password", 23, Gender.MALE);
+        customerToUpdate.setVersion(3L);
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest("Sola", null, null, null);
+
+        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customerToUpdate));
+
+        //WHEN
+        //If-Match uses the strong comparison, a weak ETag never matches
+        assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest, "W/\"10-3\""))
+                .isInstanceOf(PreconditionFailedException.class);
+
+        //THEN
+        verify(customerDao, never()).updateCustomer(any());
+    }
+
+    @Test
+    void willThrowWhenUpdateCustomerIfMatchIsStale() {
+        //GIVEN
+        int id = 10;
+        Customer customerToUpdate = new Customer(id, "Luna", "luna@dev.com", "password", 23, Gender.MALE);
+        customerToUpdate.setVersion(4L);
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest("Sola", null, null, null);
+
+        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customerToUpdate));
+
+        //WHEN
+        assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest, "\"10-3\""))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage("Customer with id [%s] was modified, reload it and retry".formatted(id));
+
+        //THEN
+        verify(customerDao, never()).updateCustomer(any());
+    }
+
+    @Test
+    void willThrowPreconditionFailedWhenConcurrentUpdateWinsAfterIfMatch() {
+        //GIVEN
+        int id = 10;
+        Customer customerToUpdate = new Customer(id, "Luna", "luna@dev.com", "password", 23, Gender.MALE);
+        customerToUpdate.setVersion(3L);
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest("Sola", null, null, null);
+
+        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customerToUpdate));
+        doThrow(new OptimisticLockingFailureException("stale")).when(customerDao).updateCustomer(any());
+
+        //WHEN
+        assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest, "\"10-3\""))
+                .isInstanceOf(PreconditionFailedException.class);
+
+        //THEN
+        verify(customerStats, never()).changed(any(), any(), any(), any());
+    }
+
     @Test
     void canUploadCustomerProfileImage() {
         //GIVEN
@@ -368,7 +701,7 @@ class CustomerServiceTest {
         int customerId = 10;
         String profileImageId = "2222";
         Customer customer = new Customer(customerId, "Agata", "agatka@mataycode.com", "password", 23, Gender.FEMALE, profileImageId);
-        when(customerDao.selectCustomerById(customerId)).thenReturn(Optional.of(customer));
+        when(customerDao.selectVersionedCustomerDTOById(customerId)).thenReturn(Optional.of(new VersionedCustomerDTO(customerDTOMapper.apply(customer), 0L)));
 
         String bucket = "customer-bucket";
         when(s3Buckets.getCustomer()).thenReturn(bucket);
@@ -389,7 +722,7 @@ class CustomerServiceTest {
         //GIVEN
         int customerId = 10;
         Customer customer = new Customer(customerId, "Agata", "agatka@mataycode.com", "password", 23, Gender.FEMALE);
-        when(customerDao.selectCustomerById(customerId)).thenReturn(Optional.of(customer));
+        when(customerDao.selectVersionedCustomerDTOById(customerId)).thenReturn(Optional.of(new VersionedCustomerDTO(customerDTOMapper.apply(customer), 0L)));
 
         //WHEN
         //THEN
@@ -405,7 +738,7 @@ class CustomerServiceTest {
     void cannotGetCustomerProfileImageWhenCustomerDoesNotExist() {
         //GIVEN
         int customerId = 10;
-        when(customerDao.selectCustomerById(customerId)).thenReturn(Optional.empty());
+        when(customerDao.selectVersionedCustomerDTOById(customerId)).thenReturn(Optional.empty());
 
         //WHEN
         //THEN
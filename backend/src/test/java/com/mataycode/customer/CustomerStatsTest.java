@@ -0,0 +1,68 @@
+package com.mataycode.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerStatsTest {
+
+    private final CustomerStats underTest = new CustomerStats();
+
+    @Test
+    void countsChangesIncrementally() {
+        //GIVEN
+        underTest.added(Gender.MALE, 23);
+        underTest.added(Gender.FEMALE, 35);
+        underTest.added(Gender.FEMALE, 104);
+
+        //WHEN
+        underTest.changed(Gender.MALE, 23, Gender.FEMALE, 31);
+        underTest.removed(Gender.FEMALE, 104);
+        CustomerStatsResponse actual = underTest.snapshot();
+
+        //THEN
+        assertThat(actual.total()).isEqualTo(2);
+        assertThat(actual.genders()).containsEntry(Gender.MALE, 0L).containsEntry(Gender.FEMALE, 2L);
+        assertThat(actual.ageHistogram()).hasSize(CustomerStats.AGE_BUCKETS);
+        assertThat(actual.ageHistogram().get(2)).isEqualTo(new CustomerStatsResponse.AgeBucket(20, 29, 0));
+        assertThat(actual.ageHistogram().get(3)).isEqualTo(new CustomerStatsResponse.AgeBucket(30, 39, 2));
+        assertThat(actual.ageHistogram().get(10)).isEqualTo(new CustomerStatsResponse.AgeBucket(100, null, 0));
+    }
+
+    @Test
+    void reconcileMovesCountersToDatabaseCounts() {
+        //GIVEN
+        underTest.added(Gender.MALE, 23);
+        underTest.added(Gender.MALE, 23);
+
+        //WHEN
+        underTest.reconcile(List.of(
+                new CustomerStatsRow(Gender.MALE, 23, 1),
+                new CustomerStatsRow(Gender.FEMALE, 27, 4),
+                new CustomerStatsRow(Gender.FEMALE, 61, 2)
+        ));
+        CustomerStatsResponse actual = underTest.snapshot();
+
+        //THEN
+        assertThat(actual.total()).isEqualTo(7);
+        assertThat(actual.genders()).containsEntry(Gender.MALE, 1L).containsEntry(Gender.FEMALE, 6L);
+        assertThat(actual.ageHistogram().get(2).count()).isEqualTo(5);
+        assertThat(actual.ageHistogram().get(6).count()).isEqualTo(2);
+    }
+
+    @Test
+    void isReadyOnlyAfterFirstReconcile() {
+        //GIVEN
+        underTest.added(Gender.MALE, 23);
+        assertThat(underTest.isReady()).isFalse();
+
+        //WHEN
+        underTest.reconcile(List.of());
+
+        //THEN
+        assertThat(underTest.isReady()).isTrue();
+        assertThat(underTest.snapshot().total()).isZero();
+    }
+}
@@ -0,0 +1,38 @@
+package com.mataycode.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HikariPoolConfigTest {
+
+    private final BeanPostProcessor underTest = HikariPoolConfig.hikariPoolSizingBeanPostProcessor();
+
+    @Test
+    void canDerivePoolSizeFromCoreCount() {
+        //GIVEN
+        HikariDataSource dataSource = new HikariDataSource();
+
+        //WHEN
+        underTest.postProcessBeforeInitialization(dataSource, "dataSource");
+
+        //THEN
+        assertThat(dataSource.getMaximumPoolSize())
+                .isEqualTo(Runtime.getRuntime().availableProcessors() * 2 + 1);
+    }
+
+    @Test
+    void willKeepExplicitPoolSize() {
+        //GIVEN
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(32);
+
+        //WHEN
+        underTest.postProcessBeforeInitialization(dataSource, "dataSource");
+
+        //THEN
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(32);
+    }
+}
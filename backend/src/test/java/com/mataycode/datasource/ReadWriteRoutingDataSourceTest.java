@@ -0,0 +1,141 @@
+package com.mataycode.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private final ReplicaStickiness stickiness = new ReplicaStickiness(Duration.ofSeconds(5));
+    private final ReadWriteRoutingDataSource underTest = new ReadWriteRoutingDataSource(
+            mock(DataSource.class), List.of(mock(DataSource.class), mock(DataSource.class)), stickiness);
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void canRouteReadOnlyTransactionsToReplicasRoundRobin() {
+        //GIVEN
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        //WHEN
+        //THEN
+        assertThat(List.of(
+                underTest.determineCurrentLookupKey(),
+                underTest.determineCurrentLookupKey(),
+                underTest.determineCurrentLookupKey()
+        )).containsExactly("replica-0", "replica-1", "replica-0");
+    }
+
+    @Test
+    void canRouteWritesToPrimary() {
+        assertThat(underTest.determineCurrentLookupKey()).isEqualTo(ReadWriteRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void canReadOwnWritesFromPrimary() {
+        //GIVEN
+        authenticate("luna@dev.com");
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        underTest.determineCurrentLookupKey();
+
+        //WHEN
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Object sameUser = underTest.determineCurrentLookupKey();
+        authenticate("sol@dev.com");
+        Object otherUser = underTest.determineCurrentLookupKey();
+        SecurityContextHolder.clearContext();
+        Object anonymous = underTest.determineCurrentLookupKey();
+
+        //THEN
+        assertThat(sameUser).isEqualTo(ReadWriteRoutingDataSource.PRIMARY);
+        assertThat(otherUser).isEqualTo("replica-0");
+        assertThat(anonymous).isEqualTo("replica-1");
+    }
+
+    @Test
+    void willNotStickToPrimaryForConnectionOutsideTransaction() {
+        //GIVEN
+        authenticate("luna@dev.com");
+        underTest.determineCurrentLookupKey();
+
+        //WHEN
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Object actual = underTest.determineCurrentLookupKey();
+
+        //THEN
+        assertThat(actual).isEqualTo("replica-0");
+    }
+
+    @Test
+    void canRouteMarkedReadOutsideTransactionToReplica() {
+        //GIVEN
+        LookupKeyReads reads = readOnlyRouted(new LookupKeyReads(underTest));
+
+        //WHEN
+        Object marked = reads.marked();
+        Object unmarked = reads.unmarked();
+
+        //THEN
+        assertThat(marked).isEqualTo("replica-0");
+        assertThat(unmarked).isEqualTo(ReadWriteRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void willKeepMarkedReadInsideReadWriteTransactionOnPrimary() {
+        //GIVEN
+        LookupKeyReads reads = readOnlyRouted(new LookupKeyReads(underTest));
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        //WHEN
+        Object actual = reads.marked();
+
+        //THEN
+        assertThat(actual).isEqualTo(ReadWriteRoutingDataSource.PRIMARY);
+    }
+
+    private static LookupKeyReads readOnlyRouted(LookupKeyReads target) {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new ReadOnlyRouteAspect());
+        return proxyFactory.getProxy();
+    }
+
+    public static class LookupKeyReads {
+
+        private final ReadWriteRoutingDataSource dataSource;
+
+        public LookupKeyReads(ReadWriteRoutingDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @ReadOnlyRoute
+        public Object marked() {
+            return dataSource.determineCurrentLookupKey();
+        }
+
+        public Object unmarked() {
+            return dataSource.determineCurrentLookupKey();
+        }
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(username, null, List.of()));
+    }
+}
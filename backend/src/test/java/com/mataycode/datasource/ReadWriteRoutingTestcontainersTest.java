@@ -0,0 +1,82 @@
+package com.mataycode.datasource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two independent Postgres containers stand in for primary and replica - no replication,
+ * so the table each statement reaches shows where it was routed.
+ */
+@Testcontainers
+class ReadWriteRoutingTestcontainersTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName("mataycode-primary")
+            .withUsername("mataycode")
+            .withPassword("password");
+
+    @Container
+    private static final PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName("mataycode-replica")
+            .withUsername("mataycode")
+            .withPassword("password");
+
+    @BeforeAll
+    static void beforeAll() {
+        for (PostgreSQLContainer<?> container : List.of(primary, replica)) {
+            Flyway.configure().dataSource(
+                    container.getJdbcUrl(),
+                    container.getUsername(),
+                    container.getPassword()
+            ).load().migrate();
+        }
+    }
+
+    @Test
+    void canRouteReadOnlyTransactionToReplicaAndWritesToPrimary() {
+        //GIVEN
+        DataSource dataSource = new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(
+                dataSourceOf(primary), List.of(dataSourceOf(replica)), new ReplicaStickiness(Duration.ofSeconds(5))));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate writeTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        TransactionTemplate readTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readTransaction.setReadOnly(true);
+
+        //WHEN
+        writeTransaction.executeWithoutResult(status -> jdbcTemplate.update("""
+                INSERT INTO customer(name, email, password, age, gender) VALUES ('Written', 'written@dev.com', 'password', 30, 'MALE')
+                """));
+        Integer readFromReplica = readTransaction.execute(status ->
+                jdbcTemplate.queryForObject("SELECT count(*) FROM customer WHERE email = 'written@dev.com'", Integer.class));
+        Integer readFromPrimary = writeTransaction.execute(status ->
+                jdbcTemplate.queryForObject("SELECT count(*) FROM customer WHERE email = 'written@dev.com'", Integer.class));
+
+        //THEN
+        assertThat(readFromReplica).isZero();
+        assertThat(readFromPrimary).isOne();
+    }
+
+    private static DataSource dataSourceOf(PostgreSQLContainer<?> container) {
+        return DataSourceBuilder.create()
+                .url(container.getJdbcUrl())
+                .username(container.getUsername())
+                .password(container.getPassword())
+                .build();
+    }
+}
@@ -0,0 +1,141 @@
+package com.mataycode.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlStatementListenerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SlowQueryLog slowQueryLog;
+    private SqlMonitoringProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new SqlMonitoringProperties();
+        slowQueryLog = new SlowQueryLog(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SqlRequestContext.end();
+    }
+
+    @Test
+    void canRedactInlineLiterals() {
+        //WHEN
+        String actual = SqlStatementListener.redact("""
+                SELECT id, md5(name)
+                FROM customer
+                WHERE email = 'john.o''neil@dev.com' AND age > 21 AND id = ?
+                """);
+
+        //THEN
+        assertThat(actual).isEqualTo("SELECT id, md5(name) FROM customer WHERE email = ? AND age > ? AND id = ?");
+    }
+
+    @Test
+    void canTimeStatementAndCountItForRequest() {
+        //GIVEN
+        //first statement of the JVM also loads the JFR event classes, far from any default threshold
+        properties.setSlowQueryThreshold(Duration.ofMinutes(1));
+        SqlStatementListener underTest = new SqlStatementListener(meterRegistry, slowQueryLog, properties);
+        SqlRequestContext context = SqlRequestContext.begin("GET", () -> "/api/v1/customers");
+
+        //WHEN
+        execute(underTest, "SELECT id FROM customer WHERE id = ?");
+        execute(underTest, "UPDATE customer SET name = ? WHERE id = ?");
+
+        //THEN
+        assertThat(context.getStatements()).isEqualTo(2);
+        assertThat(meterRegistry.get("sql.statements").tag("type", "select").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("sql.statements").tag("type", "update").timer().count()).isEqualTo(1);
+        assertThat(slowQueryLog.getEntries()).isEmpty();
+    }
+
+    @Test
+    void canRecordSlowStatement() {
+        //GIVEN
+        properties.setSlowQueryThreshold(Duration.ZERO);
+        SqlStatementListener underTest = new SqlStatementListener(meterRegistry, slowQueryLog, properties);
+        SqlRequestContext.begin("GET", () -> "/api/v1/customers/{customerId}");
+
+        //WHEN
+        execute(underTest, "SELECT password FROM customer WHERE email = 'luna@dev.com'");
+
+        //THEN
+        assertThat(slowQueryLog.getEntries()).singleElement().satisfies(slowQuery -> {
+            assertThat(slowQuery.sql()).isEqualTo("SELECT password FROM customer WHERE email = ?");
+            assertThat(slowQuery.request()).isEqualTo("GET /api/v1/customers/{customerId}");
+        });
+        assertThat(meterRegistry.get("sql.slow.statements").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void canRecordRouteTemplateInsteadOfUri() throws Exception {
+        //GIVEN
+        properties.setSlowQueryThreshold(Duration.ZERO);
+        SqlStatementListener listener = new SqlStatementListener(meterRegistry, slowQueryLog, properties);
+        SqlRequestStatisticsFilter underTest = new SqlRequestStatisticsFilter(meterRegistry, properties);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/customers/email/luna@dev.com");
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) {
+                //user lookup of the JWT filter, before the handler is mapped
+                execute(listener, "SELECT id FROM customer WHERE email = ?");
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/customers/email/{customerEmail}");
+                execute(listener, "SELECT id FROM customer WHERE email = ?");
+            }
+        });
+
+        //WHEN
+        underTest.doFilter(request, new MockHttpServletResponse(), chain);
+
+        //THEN
+        assertThat(slowQueryLog.getEntries())
+                .extracting(SlowQueryLog.SlowQuery::request)
+                .containsExactlyInAnyOrder("GET /api/v1/customers/email/{customerEmail}", "GET " + SqlRequestStatisticsFilter.UNMAPPED_ROUTE)
+                .noneMatch(entry -> entry.contains("luna@dev.com"));
+    }
+
+    @Test
+    void slowQueryLogKeepsNewestEntries() {
+        //GIVEN
+        properties.setSlowQueryLogSize(2);
+        SlowQueryLog underTest = new SlowQueryLog(properties);
+
+        //WHEN
+        for (int i = 1; i <= 3; i++) {
+            underTest.add(new SlowQueryLog.SlowQuery(null, i, "SELECT " + i, 0, null, true));
+        }
+
+        //THEN
+        assertThat(underTest.getEntries())
+                .extracting(SlowQueryLog.SlowQuery::sql)
+                .containsExactly("SELECT 3", "SELECT 2");
+    }
+
+    private static void execute(SqlStatementListener listener, String sql) {
+        ExecutionInfo executionInfo = new ExecutionInfo();
+        executionInfo.setSuccess(true);
+        List<QueryInfo> queries = List.of(new QueryInfo(sql));
+        listener.beforeQuery(executionInfo, queries);
+        listener.afterQuery(executionInfo, queries);
+    }
+}
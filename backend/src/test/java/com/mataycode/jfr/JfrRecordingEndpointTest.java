@@ -0,0 +1,113 @@
+package com.mataycode.jfr;
+
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JfrRecordingEndpointTest {
+
+    private JfrProperties properties;
+    private JfrRecordingEndpoint underTest;
+    private Long recordingId;
+
+    @BeforeEach
+    void setUp() {
+        properties = new JfrProperties();
+        underTest = new JfrRecordingEndpoint(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (recordingId != null) {
+            underTest.closeRecording(recordingId);
+        }
+    }
+
+    @Test
+    void canStartDumpAndCloseRecording() throws Exception {
+        //GIVEN
+        recordingId = underTest.startRecording(null, null).id();
+        LoginEvent event = new LoginEvent();
+        event.begin();
+        event.setSuccess(true);
+        event.commit();
+
+        //WHEN
+        byte[] dump = underTest.dumpRecording(recordingId);
+
+        //THEN
+        assertThat(underTest.recordings())
+                .anySatisfy(info -> {
+                    assertThat(info.id()).isEqualTo(recordingId);
+                    assertThat(info.state()).isEqualTo(RecordingState.RUNNING);
+                    assertThat(info.duration()).isEqualTo(properties.getMaxDuration());
+                });
+        Path file = Files.createTempFile("jfr-endpoint-test", ".jfr");
+        try {
+            Files.write(file, dump);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertThat(events)
+                    .anyMatch(e -> e.getEventType().getName().equals("com.mataycode.Login") && e.getBoolean("success"))
+                    .noneMatch(e -> e.getEventType().getName().equals("jdk.InitialEnvironmentVariable"))
+                    .noneMatch(e -> e.getEventType().getName().equals("jdk.InitialSystemProperty"));
+        } finally {
+            Files.delete(file);
+        }
+
+        underTest.closeRecording(recordingId);
+        assertThat(underTest.recordings()).noneMatch(info -> info.id() == recordingId);
+        recordingId = null;
+    }
+
+    @Test
+    void willThrowWhenSettingsAreNotAllowed() {
+        assertThatThrownBy(() -> underTest.startRecording(null, "does-not-exist"))
+                .isInstanceOf(InvalidEndpointRequestException.class)
+                .hasMessageStartingWith("JFR settings [does-not-exist] not allowed");
+    }
+
+    @Test
+    void willThrowWhenSettingsAreUnknown() {
+        //GIVEN
+        properties.setAllowedSettings(Set.of("does-not-exist"));
+
+        //WHEN
+        //THEN
+        assertThatThrownBy(() -> underTest.startRecording(null, "does-not-exist"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown JFR settings [does-not-exist]");
+    }
+
+    @Test
+    void willThrowWhenDurationExceedsMaxDuration() {
+        assertThatThrownBy(() -> underTest.startRecording(properties.getMaxDuration().toSeconds() + 1, null))
+                .isInstanceOf(InvalidEndpointRequestException.class)
+                .hasMessage("JFR recording duration must be between 1 and [300] seconds");
+        assertThatThrownBy(() -> underTest.startRecording(0L, null))
+                .isInstanceOf(InvalidEndpointRequestException.class);
+    }
+
+    @Test
+    void willThrowWhenTooManyRecordingsRun() {
+        //GIVEN
+        recordingId = underTest.startRecording(60L, null).id();
+
+        //WHEN
+        //THEN
+        assertThatThrownBy(() -> underTest.startRecording(60L, null))
+                .isInstanceOf(InvalidEndpointRequestException.class)
+                .hasMessage("At most [1] on-demand JFR recordings can run at once");
+    }
+}
@@ -0,0 +1,51 @@
+package com.mataycode.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JfrRequestFilterTest {
+
+    private final JfrRequestFilter underTest = new JfrRequestFilter();
+
+    @Test
+    void recordsRouteTemplateInsteadOfRawPath() throws Exception {
+        //GIVEN
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/customers/email/luna@dev.com");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Path file = Files.createTempFile("jfr-request-filter-test", ".jfr");
+
+        //WHEN
+        try (Recording recording = new Recording()) {
+            recording.enable(HttpRequestEvent.class);
+            recording.start();
+            underTest.doFilter(request, response, (req, res) -> req.setAttribute(
+                    HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/customers/email/{customerEmail}"));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        //THEN
+        try {
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals("com.mataycode.HttpRequest"))
+                    .toList();
+            assertThat(events).singleElement().satisfies(event -> {
+                assertThat(event.getString("method")).isEqualTo("GET");
+                assertThat(event.getString("route")).isEqualTo("/api/v1/customers/email/{customerEmail}");
+            });
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
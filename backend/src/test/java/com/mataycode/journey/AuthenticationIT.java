@@ -4,6 +4,7 @@ import com.github.javafaker.Faker;
 import com.github.javafaker.Name;
 import com.mataycode.auth.AuthenticationRequest;
 import com.mataycode.auth.AuthenticationResponse;
+import com.mataycode.customer.Customer;
 import com.mataycode.customer.CustomerDTO;
 import com.mataycode.customer.CustomerRegistrationRequest;
 import com.mataycode.customer.Gender;
@@ -96,10 +97,10 @@ public class AuthenticationIT {
 
         assertThat(jwtUtil.isTokenValid(jwtToken, customerDTO.username())).isTrue();
 
-        assertThat(customerDTO.email()).isEqualTo(email);
+        assertThat(customerDTO.email()).isEqualTo(Customer.canonicalEmail(email));
         assertThat(customerDTO.age()).isEqualTo(age);
         assertThat(customerDTO.name()).isEqualTo(name);
-        assertThat(customerDTO.username()).isEqualTo(email);
+        assertThat(customerDTO.username()).isEqualTo(Customer.canonicalEmail(email));
         assertThat(customerDTO.gender()).isEqualTo(gender);
         assertThat(customerDTO.roles()).isEqualTo(List.of("ROLE_USER"));
     }
@@ -0,0 +1,66 @@
+package com.mataycode.metrics;
+
+import com.mataycode.customer.CustomerDao;
+import com.mataycode.customer.CustomerJPADataAccessService;
+import com.mataycode.customer.CustomerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerDaoMetricsAspectTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private CustomerDao underTest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new CustomerJPADataAccessService(customerRepository));
+        proxyFactory.addAspect(new CustomerDaoMetricsAspect(meterRegistry));
+        underTest = proxyFactory.getProxy();
+    }
+
+    @Test
+    void canTimeDaoCall() {
+        //WHEN
+        underTest.existPersonWithId(1);
+
+        //THEN
+        assertThat(meterRegistry.get("customer.dao")
+                .tag("implementation", "jpa")
+                .tag("method", "existPersonWithId")
+                .tag("outcome", "success")
+                .timer()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void canTimeFailedDaoCall() {
+        //GIVEN
+        when(customerRepository.existsCustomerById(1)).thenThrow(new IllegalStateException("Connection refused"));
+
+        //WHEN
+        assertThatThrownBy(() -> underTest.existPersonWithId(1))
+                .isInstanceOf(IllegalStateException.class);
+
+        //THEN
+        assertThat(meterRegistry.get("customer.dao")
+                .tag("implementation", "jpa")
+                .tag("method", "existPersonWithId")
+                .tag("outcome", "error")
+                .tag("exception", "IllegalStateException")
+                .timer()
+                .count()).isEqualTo(1);
+    }
+}
@@ -1,5 +1,6 @@
 package com.mataycode.s3;
 
+import com.mataycode.concurrent.SingleFlight;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,6 +18,7 @@ import java.io.IOException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -29,7 +31,7 @@ class S3ServiceTest {
 
     @BeforeEach
     void setUp() {
-        underTest = new S3Service(s3Client);
+        underTest = new S3Service(s3Client, new SingleFlight<>("s3-object"));
     }
 
     @Test
@@ -81,6 +83,25 @@ class S3ServiceTest {
         assertThat(bytes).isEqualTo(data);
     }
 
+    @Test
+    void willReturnLoadedObjectWithoutCopy() {
+        //GIVEN
+        String bucket = "customer-bucket";
+        String key = "foo";
+        byte[] loaded = "file-hello".getBytes();
+
+        //waiters are copied by the single flight itself, the leader gets the array as it was read
+        SingleFlight<String, byte[]> singleFlight = mock(SingleFlight.class);
+        when(singleFlight.execute(eq(bucket + "/" + key), any())).thenReturn(loaded);
+        underTest = new S3Service(s3Client, singleFlight);
+
+        //WHEN
+        byte[] actual = underTest.getObject(bucket, key);
+
+        //THEN
+        assertThat(actual).isSameAs(loaded);
+    }
+
     @Test
     void willThrowWhenGetObject() throws IOException {
         //GIVEN
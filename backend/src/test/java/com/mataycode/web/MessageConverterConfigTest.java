@@ -0,0 +1,123 @@
+package com.mataycode.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.mataycode.customer.CustomerController;
+import com.mataycode.customer.CustomerDTO;
+import com.mataycode.customer.CustomerService;
+import com.mataycode.customer.Gender;
+import com.mataycode.customer.VersionedCustomerDTO;
+import com.mataycode.jwt.JWTUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MessageConverterConfigTest {
+
+    private static final CustomerDTO LUNA = new CustomerDTO(
+            1, "Luna", "luna@dev.com", Gender.FEMALE, 23, List.of("ROLE_USER"), "luna@dev.com", null);
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        CustomerService customerService = mock(CustomerService.class);
+        VersionedCustomerDTO luna = new VersionedCustomerDTO(LUNA, 0L);
+        when(customerService.getVersionedCustomerById(1)).thenReturn(luna);
+        when(customerService.getCustomerETag(luna)).thenReturn("\"1-0\"");
+
+        //same merge of the converter beans into the MVC defaults as the application context does
+        MessageConverterConfig config = new MessageConverterConfig();
+        HttpMessageConverters converters = new HttpMessageConverters(
+                config.smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json()),
+                config.cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json())
+        );
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new CustomerController(customerService, mock(JWTUtil.class)))
+                .setMessageConverters(converters.getConverters().toArray(HttpMessageConverter[]::new))
+                .build();
+    }
+
+    @Test
+    void canReturnJsonByDefault() throws Exception {
+        //WHEN
+        //THEN
+        mockMvc.perform(get("/api/v1/customers/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/api/v1/customers/1").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+        //browser navigation
+        mockMvc.perform(get("/api/v1/customers/1").header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void canReturnJsonForJsonAccept() throws Exception {
+        //WHEN
+        MvcResult result = mockMvc.perform(get("/api/v1/customers/1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn();
+
+        //THEN
+        CustomerDTO actual = new ObjectMapper().readValue(result.getResponse().getContentAsByteArray(), CustomerDTO.class);
+        assertThat(actual).isEqualTo(LUNA);
+    }
+
+    @Test
+    void canReturnSmileForSmileAccept() throws Exception {
+        //WHEN
+        MvcResult result = mockMvc.perform(get("/api/v1/customers/1").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn();
+
+        //THEN
+        CustomerDTO actual = new ObjectMapper(new SmileFactory()).readValue(result.getResponse().getContentAsByteArray(), CustomerDTO.class);
+        assertThat(actual).isEqualTo(LUNA);
+    }
+
+    @Test
+    void canReturnCborForCborAccept() throws Exception {
+        //WHEN
+        MvcResult result = mockMvc.perform(get("/api/v1/customers/1").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+
+        //THEN
+        CustomerDTO actual = new ObjectMapper(new CBORFactory()).readValue(result.getResponse().getContentAsByteArray(), CustomerDTO.class);
+        assertThat(actual).isEqualTo(LUNA);
+    }
+
+    @Test
+    void canPreferJsonWhenAcceptListsSeveralFormats() throws Exception {
+        //WHEN
+        //THEN
+        mockMvc.perform(get("/api/v1/customers/1").header("Accept", "application/cbor;q=0.5, application/json"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/api/v1/customers/1").header("Accept", "application/json;q=0.5, application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"));
+    }
+}
@@ -0,0 +1,124 @@
+package com.mataycode.web;
+
+import com.mataycode.customer.Customer;
+import com.mataycode.customer.CustomerDao;
+import com.mataycode.customer.CustomerUserDetailsService;
+import com.mataycode.customer.Gender;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ServerTimingFilterTest {
+
+    private final ServerTimingFilter underTest = new ServerTimingFilter();
+
+    @Test
+    void canAddServerTimingHeaderForApiRequest() throws Exception {
+        //GIVEN
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/customers/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req,
+                                   HttpServletResponse res) throws IOException {
+                ServerTiming.record(ServerTiming.JWT, TimeUnit.MICROSECONDS.toNanos(800));
+                ServerTiming.record(ServerTiming.DB, TimeUnit.MILLISECONDS.toNanos(2));
+                ServerTiming.record(ServerTiming.DB, TimeUnit.MILLISECONDS.toNanos(3));
+                ServerTiming.startSerialization();
+                res.getWriter().write("{\"id\":1}");
+            }
+        });
+
+        //WHEN
+        underTest.doFilter(request, response, chain);
+
+        //THEN
+        assertThat(response.getHeader(ServerTimingFilter.HEADER))
+                .startsWith("jwt;dur=0.8, db;dur=5.0;desc=\"2 calls\", ser;dur=")
+                .contains(", total;dur=");
+        assertThat(response.getContentAsString()).isEqualTo("{\"id\":1}");
+        //context is closed, later records on this thread are ignored
+        ServerTiming.record(ServerTiming.DB, 1);
+    }
+
+    @Test
+    void canRecordUserLookupWithoutItsDbTime() throws Exception {
+        //GIVEN
+        CustomerDao customerDao = mock(CustomerDao.class);
+        when(customerDao.selectUserByEmail("luna@dev.com")).thenAnswer(invocation -> {
+            long start = System.nanoTime();
+            Thread.sleep(50);
+            ServerTiming.record(ServerTiming.DB, System.nanoTime() - start);
+            return Optional.of(new Customer(1, "Luna", "luna@dev.com", "password", 23, Gender.FEMALE));
+        });
+        CustomerUserDetailsService userDetailsService = new CustomerUserDetailsService(customerDao);
+        //outside of a request, nothing is recorded
+        userDetailsService.loadUserByUsername("luna@dev.com");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/customers");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) {
+                userDetailsService.loadUserByUsername("luna@dev.com");
+            }
+        });
+
+        //WHEN
+        underTest.doFilter(request, response, chain);
+
+        //THEN
+        String header = response.getHeader(ServerTimingFilter.HEADER);
+        assertThat(header).matches("db;dur=\\d+\\.\\d, user;dur=\\d+\\.\\d, total;dur=\\d+\\.\\d");
+        double db = duration(header, ServerTiming.DB);
+        double user = duration(header, ServerTiming.USER);
+        assertThat(db).isGreaterThanOrEqualTo(50);
+        assertThat(user).isLessThan(db);
+        assertThat(duration(header, ServerTiming.TOTAL)).isGreaterThanOrEqualTo(db + user - 0.2);
+    }
+
+    @Test
+    void willNotTimeProfileImageRequest() throws Exception {
+        //GIVEN
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/customers/1/profile-image");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        //WHEN
+        underTest.doFilter(request, response, new MockFilterChain());
+
+        //THEN
+        assertThat(response.getHeader(ServerTimingFilter.HEADER)).isNull();
+    }
+
+    @Test
+    void willNotTimeNonApiRequest() throws Exception {
+        //GIVEN
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/actuator/health");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        //WHEN
+        underTest.doFilter(request, response, new MockFilterChain());
+
+        //THEN
+        assertThat(response.getHeader(ServerTimingFilter.HEADER)).isNull();
+    }
+
+    private static double duration(String header, String metric) {
+        Matcher matcher = Pattern.compile(metric + ";dur=([\\d.]+)").matcher(header);
+        assertThat(matcher.find()).isTrue();
+        return Double.parseDouble(matcher.group(1));
+    }
+}